@@ -0,0 +1,116 @@
+import java.io.Closeable;
+
+// 后台合并写入：变更只累加计数，由单独的写线程按时间间隔或积压数量触发一次写入，
+// 多次变更合并成一次落盘。flush() 等待此前的全部变更写完；close() 写完后停止线程。
+class AsyncPersister implements Closeable {
+    // 执行一次实际写入，成功返回 true（失败由实现自行提示，稍后重试）
+    interface Writer {
+        boolean write();
+    }
+
+    private final Writer writer;
+    private final long intervalNanos;
+    private final int maxPending;
+    private final Thread thread;
+    private long changes;    // 累计变更数
+    private long persisted;  // 已确认写入的变更数
+    private long requested;  // flush() 要求写到的变更数
+    private long failures;   // 写入失败次数，flush() 据此放弃等待
+    private long dirtySince; // 最早一条未写入变更的时间
+    private boolean closed;
+
+    // intervalMillis：有变更时最长多久写一次；maxPending：积压多少条变更立即写
+    AsyncPersister(String name, long intervalMillis, int maxPending, Writer writer) {
+        this.writer = writer;
+        this.intervalNanos = Math.max(1, intervalMillis) * 1_000_000L;
+        this.maxPending = Math.max(1, maxPending);
+        this.thread = new Thread(this::run, name);
+        // 守护线程：忘记 close() 不会让进程无法退出，但未写入的变更会丢失，需配合关闭钩子
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void changed(int n) {
+        if (changes == persisted) dirtySince = System.nanoTime();
+        changes += n;
+        if (changes - persisted >= maxPending) notifyAll();
+    }
+
+    // 等待此前的全部变更写入；写入失败或已关闭时返回 false
+    boolean flush() {
+        synchronized (this) {
+            long target = changes;
+            if (persisted >= target) return true;
+            if (closed) return false;
+            long failuresBefore = failures;
+            requested = Math.max(requested, target);
+            notifyAll();
+            boolean interrupted = false;
+            while (persisted < target && failures == failuresBefore && thread.isAlive()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            return persisted >= target;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void run() {
+        while (true) {
+            long target;
+            synchronized (this) {
+                while (!closed && !due()) {
+                    long waitNanos = changes > persisted ? intervalNanos - (System.nanoTime() - dirtySince) : 0;
+                    try {
+                        if (waitNanos > 0) wait(Math.max(1, waitNanos / 1_000_000L));
+                        else if (changes == persisted) wait();
+                    } catch (InterruptedException e) {
+                        // 只在 close() 时退出
+                    }
+                }
+                if (closed) return;
+                target = changes;
+            }
+            boolean ok = writer.write();
+            synchronized (this) {
+                dirtySince = System.nanoTime(); // 写入期间的新变更（或失败重试）再等一个间隔
+                if (ok) {
+                    persisted = Math.max(persisted, target);
+                } else {
+                    failures++;
+                    requested = persisted; // 失败后按间隔重试，不因 flush 请求而连续重试
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // 调用时持有锁
+    private boolean due() {
+        if (changes == persisted) return false;
+        return requested > persisted
+                || changes - persisted >= maxPending
+                || System.nanoTime() - dirtySince >= intervalNanos;
+    }
+}
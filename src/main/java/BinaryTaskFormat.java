@@ -0,0 +1,235 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// 二进制存储格式：
+//   文件头  magic "TDB1"(4) | version int(4) | count long(8)
+//   数据块  recordCount int(4) | payloadLength int(4) | payload | crc32 int(4)
+//   记录    zigzag varint id | status byte | [时间戳] | varint (描述字节数 + 1，0 表示 null) | UTF-8 描述
+//   时间戳  status byte 带 HAS_TIMES 位时：zigzag varlong created | zigzag varlong (updated - created)，
+//           再带 HAS_COMPLETED 位时：zigzag varlong (completed - created)
+// 描述按长度前缀存储，可以包含换行和 '|'；每个块单独校验，损坏的块整体跳过。
+// 版本 1 没有时间戳，仍可读取
+class BinaryTaskFormat {
+    static final byte[] MAGIC = { 'T', 'D', 'B', '1' };
+    static final int VERSION = 2;
+    private static final int HAS_TIMES = 0x40;
+    private static final int HAS_COMPLETED = 0x20;
+    private static final int STATUS_MASK = 0x1F;
+    private static final int HEADER_SIZE = 16;
+    private static final int BLOCK_RECORDS = 4096;
+    private static final int BLOCK_BYTES = 64 << 10;
+
+    private BinaryTaskFormat() {}
+
+    // 文件是否以二进制格式的 magic 开头
+    static boolean isBinary(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) return false;
+        byte[] head = new byte[MAGIC.length];
+        try (InputStream in = new FileInputStream(file)) {
+            return in.read(head) == head.length && Arrays.equals(head, MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void write(OutputStream os, List<Task> tasks) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(tasks.size());
+
+        Block block = new Block();
+        CRC32 crc = new CRC32();
+        for (Task t : tasks) {
+            block.add(t);
+            if (block.records >= BLOCK_RECORDS || block.len >= BLOCK_BYTES) block.flush(out, crc);
+        }
+        block.flush(out, crc);
+        out.flush();
+    }
+
+    // 读取全部任务；校验失败的块跳过，文件尾部被截断时读到哪算哪
+    static List<Task> read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("不是二进制任务文件");
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) throw new IOException("不支持的文件版本：" + version);
+        long count = in.readLong();
+
+        // 文件头的条数只作容量提示，损坏时可能为负数或极大
+        List<Task> out = new ArrayList<>((int) Math.max(0, Math.min(count, 1 << 20)));
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[BLOCK_BYTES * 2];
+        while (true) {
+            int records;
+            int len;
+            try {
+                records = in.readInt();
+                len = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (records < 0 || len < 0) break; // 块头损坏，后面的数据无法定位
+            int expected;
+            try {
+                payload = readPayload(in, payload, len);
+                expected = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload, 0, len);
+            if ((int) crc.getValue() != expected) continue;
+            decodeBlock(payload, len, records, out);
+        }
+        return out;
+    }
+
+    // 读入 len 字节的负载。单条描述很长时块会超过 BLOCK_BYTES，所以不能按固定上限拒绝；
+    // 缓冲区随实际读到的字节翻倍扩容，块头里损坏的长度读到文件末尾即止，不会先按它分配内存
+    private static byte[] readPayload(DataInputStream in, byte[] buf, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            if (n == buf.length) buf = Arrays.copyOf(buf, (int) Math.min(len, 2L * buf.length));
+            int k = in.read(buf, n, Math.min(len, buf.length) - n);
+            if (k < 0) throw new EOFException();
+            n += k;
+        }
+        return buf;
+    }
+
+    private static void decodeBlock(byte[] b, int len, int records, List<Task> out) {
+        Task.Status[] statuses = Task.Status.values();
+        int[] pos = { 0 };
+        for (int r = 0; r < records && pos[0] < len; r++) {
+            int raw = readVarint(b, pos);
+            int id = (raw >>> 1) ^ -(raw & 1);
+            int flags = b[pos[0]++];
+            int st = flags & STATUS_MASK;
+            long created = 0;
+            long updated = 0;
+            long completed = 0;
+            if ((flags & HAS_TIMES) != 0) {
+                created = unzigzag(readVarlong(b, pos));
+                updated = created + unzigzag(readVarlong(b, pos));
+                if ((flags & HAS_COMPLETED) != 0) completed = created + unzigzag(readVarlong(b, pos));
+            }
+            int descLen = readVarint(b, pos);
+            String desc = null;
+            if (descLen > 0) {
+                desc = new String(b, pos[0], descLen - 1, StandardCharsets.UTF_8);
+                pos[0] += descLen - 1;
+            }
+            if (flags >= 0 && st < statuses.length) out.add(new Task(id, desc, statuses[st], created, updated, completed));
+        }
+    }
+
+    private static long readVarlong(byte[] b, int[] pos) {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            byte x = b[pos[0]++];
+            v |= (long) (x & 0x7F) << shift;
+            if (x >= 0) return v;
+            shift += 7;
+        }
+    }
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static int readVarint(byte[] b, int[] pos) {
+        int v = 0;
+        int shift = 0;
+        while (true) {
+            byte x = b[pos[0]++];
+            v |= (x & 0x7F) << shift;
+            if (x >= 0) return v;
+            shift += 7;
+        }
+    }
+
+    // 正在拼装的数据块
+    private static final class Block {
+        byte[] buf = new byte[BLOCK_BYTES * 2];
+        int len;
+        int records;
+
+        void add(Task t) {
+            String desc = t.getDescription();
+            int max = 5 + 1 + 3 * 10 + 5 + (desc == null ? 0 : desc.length() * 3);
+            if (len + max > buf.length) buf = Arrays.copyOf(buf, Math.max(len + max, buf.length * 2));
+            int id = t.getId();
+            writeVarint((id << 1) ^ (id >> 31));
+            int flags = t.getStatus().ordinal();
+            long created = t.getCreatedAt();
+            if (t.hasTimes()) flags |= t.getCompletedAt() != 0 ? HAS_TIMES | HAS_COMPLETED : HAS_TIMES;
+            buf[len++] = (byte) flags;
+            if ((flags & HAS_TIMES) != 0) {
+                writeVarlong(zigzag(created));
+                writeVarlong(zigzag(t.getUpdatedAt() - created));
+                if ((flags & HAS_COMPLETED) != 0) writeVarlong(zigzag(t.getCompletedAt() - created));
+            }
+            if (desc == null) {
+                writeVarint(0);
+            } else {
+                // 先按最大长度预留 varint 位置，写完描述再回填
+                int lenPos = len;
+                len += 5;
+                int end = TaskCodec.writeUtf8(desc, buf, len);
+                int n = end - len;
+                int v = n + 1;
+                int vlen = varintSize(v);
+                System.arraycopy(buf, len, buf, lenPos + vlen, n);
+                len = lenPos;
+                writeVarint(v);
+                len += n;
+            }
+            records++;
+        }
+
+        void flush(DataOutputStream out, CRC32 crc) throws IOException {
+            if (records == 0) return;
+            crc.reset();
+            crc.update(buf, 0, len);
+            out.writeInt(records);
+            out.writeInt(len);
+            out.write(buf, 0, len);
+            out.writeInt((int) crc.getValue());
+            len = 0;
+            records = 0;
+        }
+
+        private void writeVarlong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        private void writeVarint(int v) {
+            while ((v & ~0x7F) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        private static int varintSize(int v) {
+            int n = 1;
+            while ((v & ~0x7F) != 0) {
+                v >>>= 7;
+                n++;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 线程安全的 TaskStore，供多个前端共享同一份数据：
+// - id 用 AtomicInteger 无锁分配
+// - 主索引与状态索引都是 ConcurrentSkipListMap，按 id 有序
+// - listAll / listByStatus 是弱一致的快照遍历，读者从不阻塞写者
+// 状态变更与删除只锁住单个任务对象，不同任务之间互不影响。
+public class ConcurrentTaskStore {
+    private final ConcurrentSkipListMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Task>[] byStatus;
+    private final AtomicInteger[] statusCounts;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final File dataFile;
+    private final TaskStore.Format format;
+    private final Object saveLock = new Object(); // 串行化快照文件的写入
+    // 后台定期保存（enableAsyncSave），未开启时为 null
+    private volatile AsyncPersister persister;
+
+    public ConcurrentTaskStore(String filePath) {
+        this(filePath, TaskStore.Format.TEXT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentTaskStore(String filePath, TaskStore.Format format) {
+        this.dataFile = new File(filePath);
+        this.format = format;
+        int n = Task.Status.values().length;
+        byStatus = (ConcurrentSkipListMap<Integer, Task>[]) new ConcurrentSkipListMap<?, ?>[n];
+        statusCounts = new AtomicInteger[n];
+        for (int i = 0; i < n; i++) {
+            byStatus[i] = new ConcurrentSkipListMap<>();
+            statusCounts[i] = new AtomicInteger();
+        }
+    }
+
+    // 启动时加载，应在其他线程开始访问之前调用（坏行与重复 ID 跳过）
+    public void load() {
+        if (!dataFile.exists()) return;
+        try {
+            int maxId = 0;
+            for (Task t : TaskStore.readTasks(dataFile)) {
+                if (tasks.putIfAbsent(t.getId(), t) != null) continue;
+                byStatus[t.getStatus().ordinal()].put(t.getId(), t);
+                statusCounts[t.getStatus().ordinal()].incrementAndGet();
+                maxId = Math.max(maxId, t.getId());
+            }
+            nextId.set(maxId + 1);
+        } catch (IOException e) {
+            System.out.println("读取数据文件出错，但程序继续运行。");
+        }
+    }
+
+    // 保存当前内容；与并发写入同时进行时，得到的是弱一致的快照。
+    // 多个线程同时保存时依次进行（共用同一个临时文件），后保存的内容不会被先取的快照覆盖。
+    // 返回是否成功，失败时已提示，原有数据文件保持不变
+    public boolean save() {
+        synchronized (saveLock) {
+            try {
+                TaskStore.writeFile(dataFile, format, listAll());
+                return true;
+            } catch (IOException e) {
+                System.out.println("保存失败：" + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    // 开启后台定期保存：有变更时每 intervalMillis 毫秒或积压 maxPendingChanges 条变更时写一次快照，
+    // 进程崩溃时最多丢失最近一个间隔内的变更。每次变更多一次很短的计数加锁。
+    // 退出前必须调用 close()（或在关闭钩子里调用）
+    public synchronized void enableAsyncSave(long intervalMillis, int maxPendingChanges) {
+        if (persister == null) persister = new AsyncPersister("task-async-save", intervalMillis, maxPendingChanges, this::save);
+    }
+
+    // 写完未保存的变更并停止后台保存线程；未开启后台保存时等同于 save()。可重复调用
+    public void close() {
+        AsyncPersister p;
+        synchronized (this) {
+            p = persister;
+            persister = null;
+        }
+        if (p != null) p.close();
+        else save();
+    }
+
+    private void changed() {
+        AsyncPersister p = persister;
+        if (p != null) p.changed(1);
+    }
+
+    public Task add(String description) {
+        long now = System.currentTimeMillis();
+        Task t = new Task(nextId.getAndIncrement(), description, Task.Status.TODO, now, now, 0);
+        synchronized (t) {
+            tasks.put(t.getId(), t);
+            byStatus[Task.Status.TODO.ordinal()].put(t.getId(), t);
+            statusCounts[Task.Status.TODO.ordinal()].incrementAndGet();
+        }
+        changed();
+        return t;
+    }
+
+    public List<Task> listAll() { return new ArrayList<>(tasks.values()); }
+
+    public List<Task> listByStatus(Task.Status status) {
+        return new ArrayList<>(byStatus[status.ordinal()].values());
+    }
+
+    // 游标分页：按 id 顺序返回 id 大于 afterId 的最多 limit 个任务
+    public List<Task> listAfter(int afterId, int limit) {
+        return firstN(tasks.tailMap(afterId, false).values(), limit);
+    }
+
+    public List<Task> listAfter(Task.Status status, int afterId, int limit) {
+        return firstN(byStatus[status.ordinal()].tailMap(afterId, false).values(), limit);
+    }
+
+    private static List<Task> firstN(Iterable<Task> values, int limit) {
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        for (Task t : values) {
+            if (out.size() >= limit) break;
+            out.add(t);
+        }
+        return out;
+    }
+
+    public int countByStatus(Task.Status status) { return statusCounts[status.ordinal()].get(); }
+
+    public int size() { return tasks.size(); }
+
+    public Task findById(int id) { return tasks.get(id); }
+
+    public boolean delete(int id) {
+        Task t = tasks.get(id);
+        if (t == null) return false;
+        synchronized (t) {
+            if (!tasks.remove(id, t)) return false; // 已被其他线程删除
+            byStatus[t.getStatus().ordinal()].remove(id);
+            statusCounts[t.getStatus().ordinal()].decrementAndGet();
+        }
+        changed();
+        return true;
+    }
+
+    public boolean markStatus(int id, Task.Status status) {
+        Task t = tasks.get(id);
+        if (t == null) return false;
+        synchronized (t) {
+            if (tasks.get(id) != t) return false; // 已被其他线程删除
+            Task.Status old = t.getStatus();
+            if (old == status) return true;
+            byStatus[status.ordinal()].put(id, t);
+            statusCounts[status.ordinal()].incrementAndGet();
+            t.setStatus(status);
+            long now = System.currentTimeMillis();
+            t.setTimes(t.getCreatedAt(), now, status == Task.Status.DONE ? now : 0);
+            byStatus[old.ordinal()].remove(id);
+            statusCounts[old.ordinal()].decrementAndGet();
+        }
+        changed();
+        return true;
+    }
+}
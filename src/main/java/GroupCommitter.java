@@ -0,0 +1,189 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 日志的组提交：append 只把记录复制进内存缓冲并返回序号，提交线程把积攒的记录一次写入并 fsync，
+// 然后完成等待这些序号的 future。提交线程在 fsync 期间新到的记录自然组成下一批；
+// 此外每批最多再等 maxWaitNanos 或攒够 maxBatch 条——等得越久每次 fsync 合并的记录越多，单条延迟也越高。
+// 一批写入失败后日志里缺了这批记录，之后的记录即使写成也不能当作已落盘：从此不再写文件，
+// 所有提交都以该异常完成，直到 discard（快照已包含全部变更、日志被截断）
+class GroupCommitter {
+    private final FileOutputStream out;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final Thread thread;
+    private final Object ioLock = new Object(); // 写文件期间持有，truncate 须等待进行中的提交
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>((a, b) -> Long.compare(a.seq, b.seq));
+
+    private byte[] pending = new byte[8192];
+    private byte[] spare = new byte[8192];
+    private int pendingLen;
+    private int pendingRecords;
+    private long firstPendingAt;  // 缓冲区由空变为非空的时刻
+    private long appended;        // 最后一条追加记录的序号
+    private long durable;         // 已落盘（或已包含在快照中）的最大序号
+    private long commits;
+    private IOException failed;   // 写入失败后置位，discard 时清除
+    private boolean closed;
+
+    private static final class Waiter {
+        final long seq;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Waiter(long seq) { this.seq = seq; }
+    }
+
+    GroupCommitter(FileOutputStream out, int maxBatch, long maxWaitNanos) {
+        this.out = out;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = Math.max(0, maxWaitNanos);
+        thread = new Thread(this::run, "task-journal-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 追加一条记录（可以是一整个批次），返回其序号
+    synchronized long append(byte[] record) {
+        if (closed) throw new IllegalStateException("日志已关闭");
+        if (pendingLen + record.length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pendingLen + record.length, pending.length * 2));
+        }
+        System.arraycopy(record, 0, pending, pendingLen, record.length);
+        if (pendingLen == 0) firstPendingAt = System.nanoTime();
+        pendingLen += record.length;
+        pendingRecords++;
+        if (pendingRecords == 1 || pendingRecords >= maxBatch) notifyAll();
+        return ++appended;
+    }
+
+    synchronized long appended() { return appended; }
+
+    // 已执行的 fsync 次数
+    synchronized long commits() { return commits; }
+
+    // 序号 <= seq 的记录全部落盘后完成；写入失败时以 IOException 异常完成，之后的提交也是，直到 discard
+    synchronized CompletableFuture<Void> whenDurable(long seq) {
+        if (seq <= durable) return CompletableFuture.completedFuture(null);
+        if (failed != null) return CompletableFuture.failedFuture(failed);
+        Waiter w = new Waiter(seq);
+        waiters.add(w);
+        return w.future;
+    }
+
+    // 快照已包含全部记录：丢弃尚未写入的缓冲，在没有提交进行时执行 truncate，并完成所有等待
+    void discard(IOAction truncate) throws IOException {
+        List<Waiter> done;
+        IOException failure = null;
+        synchronized (ioLock) {
+            synchronized (this) {
+                pendingLen = 0;
+                pendingRecords = 0;
+                durable = appended;
+                failed = null;
+                done = takeWaiters(durable);
+            }
+            try {
+                truncate.run();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        complete(done, null);
+        if (failure != null) throw failure;
+    }
+
+    // 写完剩余记录后停止提交线程；不关闭文件
+    void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    interface IOAction {
+        void run() throws IOException;
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    while (pendingLen == 0 && !closed) wait();
+                    if (pendingLen == 0) return; // 已关闭且全部写完
+                    long left;
+                    while (!closed && pendingRecords < maxBatch
+                            && (left = firstPendingAt + maxWaitNanos - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, left);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            commitOnce();
+        }
+    }
+
+    private void commitOnce() {
+        List<Waiter> done;
+        IOException failure = null;
+        synchronized (ioLock) {
+            byte[] buf;
+            int len;
+            long seq;
+            synchronized (this) {
+                if (pendingLen == 0) return; // 已被 discard 清空
+                failure = failed;
+                buf = pending;
+                len = pendingLen;
+                seq = appended;
+                pending = spare;
+                pendingLen = 0;
+                pendingRecords = 0;
+            }
+            // 写文件时不持有 this：其他线程可以继续追加下一批。此前已失败时这批直接丢弃，
+            // 内存中的变更由下一次保存写进快照
+            boolean wrote = failure == null;
+            if (wrote) {
+                try {
+                    out.write(buf, 0, len);
+                    out.getFD().sync();
+                } catch (IOException e) {
+                    failure = e;
+                    System.out.println("写入日志失败：" + e.getMessage());
+                }
+            }
+            synchronized (this) {
+                spare = buf;
+                if (wrote) commits++;
+                if (failure == null) durable = Math.max(durable, seq);
+                else failed = failure;
+                done = takeWaiters(seq);
+            }
+        }
+        // 不持有任何锁时完成 future：回调里可能再调用 store
+        complete(done, failure);
+    }
+
+    private List<Waiter> takeWaiters(long seq) {
+        List<Waiter> done = new ArrayList<>();
+        while (!waiters.isEmpty() && waiters.peek().seq <= seq) done.add(waiters.poll());
+        return done;
+    }
+
+    private static void complete(List<Waiter> done, IOException failure) {
+        for (Waiter w : done) {
+            if (failure == null) w.future.complete(null);
+            else w.future.completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.BitSet;
+
+// 可复用已释放 id 的分配器（TaskStore.enableIdReuse）：记录 [1, next) 中空闲的 id，分配时取最小的空闲 id，
+// 没有空闲时才用 next。释放的恰好是最大的 id 时直接回退 next，大批删除末尾的任务后 id 空间随之收缩。
+// 空闲集合用位图，占 next / 8 字节
+class IdAllocator {
+    private final BitSet free = new BitSet();
+    private int next;     // 大于所有已用 id
+    private int hint = 1; // 最小的空闲 id 不小于它
+
+    // used 为当前已使用的 id（可含 <= 0 的 id，不参与分配）
+    IdAllocator(int[] used) {
+        int max = 0;
+        for (int id : used) max = Math.max(max, id);
+        next = max + 1;
+        if (next > 1) free.set(1, next);
+        for (int id : used) if (id > 0) free.clear(id);
+    }
+
+    int next() { return next; }
+
+    int freeCount() { return free.cardinality(); }
+
+    int allocate() {
+        int id = free.nextSetBit(hint);
+        if (id > 0) {
+            free.clear(id);
+            hint = id + 1;
+            return id;
+        }
+        return next++;
+    }
+
+    void release(int id) {
+        if (id < 1 || id >= next) return;
+        if (id != next - 1) {
+            free.set(id);
+            hint = Math.min(hint, id);
+            return;
+        }
+        // 回退 next，连同紧挨着的空闲 id 一起
+        next--;
+        while (next > 1 && free.get(next - 1)) {
+            free.clear(next - 1);
+            next--;
+        }
+    }
+
+    // 调用方指定 id 加入任务（回放日志等）：标记为已用，中间跳过的 id 记为空闲
+    void use(int id) {
+        if (id < 1) return;
+        if (id >= next) {
+            free.set(next, id);
+            hint = Math.min(hint, next);
+            next = id + 1;
+        } else {
+            free.clear(id);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+// int -> int 的开放寻址哈希表（线性探测），避免 HashMap<Integer, ...> 的装箱开销
+// 值不允许为负数：get 返回 -1 表示不存在
+class IntIntMap {
+    private static final int FREE = 0;
+    private static final int USED = 1;
+    private static final int REMOVED = 2;
+
+    private int[] keys;
+    private int[] values;
+    private byte[] states;
+    private int size;
+    private int occupied; // USED + REMOVED，用于决定何时重建
+
+    IntIntMap() { this(16); }
+
+    IntIntMap(int expected) {
+        int cap = 16;
+        while (cap * 3 / 4 < expected) cap <<= 1;
+        alloc(cap);
+    }
+
+    private void alloc(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        states = new byte[cap];
+        size = 0;
+        occupied = 0;
+    }
+
+    private static int mix(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int size() { return size; }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (states[i] != FREE) {
+            if (states[i] == USED && keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    boolean containsKey(int key) { return get(key) >= 0; }
+
+    void put(int key, int value) {
+        if ((occupied + 1) * 4 > keys.length * 3) rehash(size + 1);
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        int tomb = -1;
+        while (states[i] != FREE) {
+            if (states[i] == USED && keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            if (states[i] == REMOVED && tomb < 0) tomb = i;
+            i = (i + 1) & mask;
+        }
+        if (tomb >= 0) {
+            i = tomb;
+        } else {
+            occupied++;
+        }
+        keys[i] = key;
+        values[i] = value;
+        states[i] = USED;
+        size++;
+    }
+
+    // 返回被删除的值，不存在时返回 -1
+    int remove(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (states[i] != FREE) {
+            if (states[i] == USED && keys[i] == key) {
+                states[i] = REMOVED;
+                size--;
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 当前所有键（顺序不定）
+    int[] keyArray() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == USED) out[n++] = keys[i];
+        }
+        return out;
+    }
+
+    void clear() {
+        Arrays.fill(states, (byte) FREE);
+        size = 0;
+        occupied = 0;
+    }
+
+    private void rehash(int needed) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        byte[] oldStates = states;
+        int cap = oldKeys.length;
+        while (cap * 3 / 4 < needed * 2) cap <<= 1;
+        alloc(cap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == USED) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 对数-线性分桶的延迟直方图（HdrHistogram 的简化版）：每个 2 的幂区间再等分 8 个子桶，
+// 相对误差不超过 12.5%。记录只做几次原子加，不分配对象；可以多线程同时记录
+class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // 0..7 各占一个桶，之后每个指数 3..62 各 8 个桶
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // 记录一个纳秒值（负数按 0 计）
+    void record(long nanos) {
+        long v = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // 重试
+        }
+    }
+
+    long count() { return total.get(); }
+
+    long max() { return max.get(); }
+
+    double mean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    // percentile 取 0..100；返回该分位所在桶的上界（不超过最大值），没有记录时返回 0
+    long percentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    // 与并发的 record 不是原子的，只用于手动清零
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int bucket(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + (int) ((v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+    }
+
+    // 桶内最大的值
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        long lower = (long) (SUB_COUNT + bucket % SUB_COUNT) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
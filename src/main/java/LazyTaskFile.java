@@ -0,0 +1,197 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 文本数据文件的延迟加载：启动时分块扫描一遍，每个任务只记下 id、状态和描述在文件中的位置，
+// 描述第一次被读取时才按位置从文件读出并解码，最近读过的描述放在 LRU 缓存中。
+// 内存占用只与任务数和实际查看过的描述有关，与文件大小无关；不做内存映射，超过 2GB 的文件同样适用。
+// 文件保持打开以便按位置读取（不再被引用时由 Cleaner 关闭）。保存是把新文件改名替换数据文件，
+// 已打开的句柄仍读到原来的内容；NIO 打开的文件允许共享删除，Windows 上也不妨碍替换
+class LazyTaskFile {
+    static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final int CHUNK_SIZE = 1 << 20;  // 扫描时每次读入的字节数，一行放不下时翻倍
+    private static final int WINDOW_SIZE = 1 << 16; // 保存时顺序拷贝原始字节的预读窗口
+    private static final Task.Status[] STATUSES = Task.Status.values();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel ch;
+    private final Map<Long, String> cache; // 描述起始位置 -> 解码结果，按访问顺序淘汰
+    private ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE); // 由 this 的锁保护
+    private long windowStart = -1;
+
+    private LazyTaskFile(FileChannel ch, int cacheSize) {
+        this.ch = ch;
+        this.cache = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        CLEANER.register(this, () -> {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                System.out.println("关闭数据文件失败：" + e.getMessage());
+            }
+        });
+    }
+
+    // 扫描文本格式的数据文件，按行序把任务追加到 out（坏行跳过，开启指标时计入跳过行数）。
+    // 文件不是文本格式时返回 false，由调用方照常加载
+    static boolean load(File file, int cacheSize, List<Task> out, TaskMetrics metrics) throws IOException {
+        if (SlottedTaskFile.isSlotted(file) || BinaryTaskFormat.isBinary(file)) return false;
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            new LazyTaskFile(ch, Math.max(cacheSize, 0)).scan(out, metrics);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        return true;
+    }
+
+    // 行的切分与 BufferedReader.readLine 一致：'\n'、'\r' 或 "\r\n" 都结束一行。
+    // 块末尾不完整的行（以及可能后接 '\n' 的 '\r'）留到下一块
+    private void scan(List<Task> out, TaskMetrics metrics) throws IOException {
+        int[] header = new int[3];
+        long[] times = new long[3];
+        int skipped = 0;
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_SIZE);
+        long base = 0; // buf[0] 在文件中的位置
+        boolean eof = false;
+        while (true) {
+            while (!eof && buf.hasRemaining()) eof = read(buf, base + buf.position()) < 0;
+            int limit = buf.position();
+            int pos = 0;
+            while (pos < limit) {
+                int end = pos;
+                while (end < limit && buf.get(end) != '\n' && buf.get(end) != '\r') end++;
+                if (!eof && (end == limit || buf.get(end) == '\r' && end + 1 == limit)) break;
+                if (TaskCodec.decodeHeader(buf, pos, end, header, times)) {
+                    out.add(new LazyTask(header[0], STATUSES[header[1]], times[0], times[1], times[2],
+                            this, base + header[2], end - header[2]));
+                } else if (end > pos) {
+                    skipped++;
+                }
+                pos = end < limit && buf.get(end) == '\r' && end + 1 < limit && buf.get(end + 1) == '\n' ? end + 2 : end + 1;
+            }
+            if (eof) break;
+            if (pos == 0) {
+                // 一行比缓冲区还长
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.limit(limit).position(pos);
+                buf.compact();
+                base += pos;
+            }
+        }
+        if (metrics != null) metrics.addSkippedLines(skipped);
+    }
+
+    // 按位置读取。FileChannel 在调用线程带着中断标记时会被关闭，之后的描述都读不出来，
+    // 所以读取期间先清除中断标记，读完再恢复
+    private int read(ByteBuffer dst, long position) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try {
+            return ch.read(dst, position);
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readFully(ByteBuffer dst, long position, int length) throws IOException {
+        while (dst.position() < length) {
+            if (read(dst, position + dst.position()) < 0) throw new EOFException("数据文件比扫描时短");
+        }
+    }
+
+    // 可以多线程同时调用：按位置读取不改变通道状态，缓存加锁
+    String description(long offset, int length) {
+        synchronized (cache) {
+            String s = cache.get(offset);
+            if (s != null) return s;
+        }
+        ByteBuffer b = ByteBuffer.allocate(length);
+        try {
+            readFully(b, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取任务描述失败", e);
+        }
+        String s = new String(b.array(), 0, length, StandardCharsets.UTF_8);
+        synchronized (cache) {
+            cache.put(offset, s);
+        }
+        return s;
+    }
+
+    // 把文件中 [offset, offset + length) 的原始字节作为描述编码成一行。
+    // 保存时任务按文件顺序排列，经预读窗口拷贝，每 WINDOW_SIZE 字节才读一次文件
+    private synchronized void encode(TaskCodec codec, Task t, long offset, int length) throws IOException {
+        if (windowStart < 0 || offset < windowStart || offset + length > windowStart + window.limit()) {
+            if (window.capacity() < length) window = ByteBuffer.allocate(length);
+            window.clear();
+            windowStart = -1;
+            readFully(window, offset, length);
+            window.flip();
+            windowStart = offset;
+        }
+        codec.encode(t.getId(), t.getStatus(), t.getCreatedAt(), t.getUpdatedAt(), t.getCompletedAt(),
+                window, (int) (offset - windowStart), length);
+    }
+
+    // 描述还在文件中的任务；修改描述之后与普通任务相同
+    static final class LazyTask extends Task {
+        private volatile LazyTaskFile file;
+        private final long offset;
+        private final int length;
+
+        LazyTask(int id, Task.Status status, long createdAt, long updatedAt, long completedAt,
+                 LazyTaskFile file, long offset, int length) {
+            super(id, null, status, createdAt, updatedAt, completedAt);
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String getDescription() {
+            LazyTaskFile f = file;
+            return f != null ? f.description(offset, length) : super.getDescription();
+        }
+
+        @Override
+        void assignDescription(String description) {
+            super.assignDescription(description);
+            file = null;
+        }
+
+        // 副本（store 的写时复制、renumber）同样不解码描述
+        @Override
+        Task withId(int newId) {
+            LazyTaskFile f = file;
+            return f == null ? super.withId(newId) : new LazyTask(newId, getStatus(),
+                    getCreatedAt(), getUpdatedAt(), getCompletedAt(), f, offset, length);
+        }
+
+        // 描述仍在文件中时把原始字节直接编码成一行，不经过 String 也不占用缓存；
+        // 返回 false 表示须按普通任务编码
+        boolean encodeTo(TaskCodec codec) throws IOException {
+            LazyTaskFile f = file;
+            if (f == null) return false;
+            f.encode(codec, this, offset, length);
+            return true;
+        }
+    }
+}
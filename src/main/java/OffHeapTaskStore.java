@@ -0,0 +1,377 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+// 面向超大数据量的列式 TaskStore：堆上不保存 Task 对象。
+// - id 放在 int[] 列中，状态用每种状态一个槽位位图表示（槽位不在任何位图中即已删除）
+// - 描述以 UTF-8 存放在堆外 arena（直接内存），列中只记录偏移和长度
+// - 读取时才临时构造 Task；返回的是副本，修改须经由本类的方法
+// 每个任务在堆上约占 44 字节（含三个时间戳列，另加 id 索引），与 TaskStore 相比堆占用和 GC 扫描量都小得多。
+public class OffHeapTaskStore {
+    private static final int SAVE_BUFFER_SIZE = 64 << 10;
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    // 按插入顺序的列；删除只清位图，空槽过多时再整体压缩
+    private int[] ids = new int[16];
+    private long[] descRefs = new long[16]; // arena 地址，-1 表示 null
+    private int[] descLens = new int[16];
+    private long[] createdAt = new long[16];  // 时间戳列，语义同 Task 的同名字段
+    private long[] updatedAt = new long[16];
+    private long[] completedAt = new long[16];
+    private int slotCount;
+    private int liveCount;
+    // 槽位中的 id 是否随插入顺序严格递增（文件中 id 乱序时不成立），成立时游标定位可以二分
+    private boolean idsAscending = true;
+    private final IntIntMap index = new IntIntMap();
+    private final BitSet[] byStatus = new BitSet[Task.Status.values().length];
+    private final int[] statusCounts = new int[Task.Status.values().length];
+    private Utf8Arena arena = new Utf8Arena();
+    private long liveBytes; // arena 中仍被引用的字节数，其余为删除/修改留下的垃圾
+    private int nextId = 1;
+    private byte[] scratch = new byte[256];
+    private final File dataFile;
+    private final TaskStore.Format format;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    public OffHeapTaskStore(String filePath) {
+        this(filePath, TaskStore.Format.TEXT);
+    }
+
+    public OffHeapTaskStore(String filePath, TaskStore.Format format) {
+        this.dataFile = new File(filePath);
+        this.format = format;
+        for (int i = 0; i < byStatus.length; i++) byStatus[i] = new BitSet();
+    }
+
+    // 时间戳的来源，供测试替换
+    synchronized void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // 启动时加载（坏行与重复 ID 跳过）。文本文件逐行读入，不会先构造完整的 List<Task>
+    public synchronized void load() {
+        if (!dataFile.exists()) return;
+        try {
+            int maxId = 0;
+            if (BinaryTaskFormat.isBinary(dataFile) || SlottedTaskFile.isSlotted(dataFile)) {
+                for (Task t : TaskStore.readTasks(dataFile)) maxId = accept(t, maxId);
+            } else {
+                try (BufferedReader br = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(dataFile), StandardCharsets.UTF_8), 1 << 16)) {
+                    TaskCodec codec = new TaskCodec();
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        maxId = accept(codec.decode(line, 0, line.length()), maxId);
+                    }
+                }
+            }
+            nextId = maxId + 1;
+        } catch (IOException e) {
+            System.out.println("读取数据文件出错，但程序继续运行。");
+        }
+    }
+
+    private int accept(Task t, int maxId) {
+        if (t == null || index.containsKey(t.getId())) return maxId;
+        append(t.getId(), t.getDescription(), t.getStatus(), t.getCreatedAt(), t.getUpdatedAt(), t.getCompletedAt());
+        return Math.max(maxId, t.getId());
+    }
+
+    // 文本格式直接把 arena 中的 UTF-8 字节拷进输出缓冲，不构造 Task 或 String
+    public synchronized void save() {
+        compactIfFragmented();
+        try {
+            if (format == TaskStore.Format.SLOTTED) {
+                TaskStore.writeFile(dataFile, format, liveView());
+            } else {
+                SnapshotFile.write(dataFile, this::writeSnapshot);
+            }
+        } catch (IOException e) {
+            System.out.println("保存失败：" + e.getMessage());
+        }
+    }
+
+    private void writeSnapshot(OutputStream fos) throws IOException {
+        if (format == TaskStore.Format.BINARY) {
+            BinaryTaskFormat.write(fos, liveView());
+            return;
+        }
+        TaskCodec codec = new TaskCodec();
+        for (int i = 0; i < slotCount; i++) {
+            Task.Status st = statusAt(i);
+            if (st == null) continue;
+            long ref = descRefs[i];
+            if (ref < 0) {
+                codec.encode(ids[i], st, createdAt[i], updatedAt[i], completedAt[i], null, 0, -1);
+            } else {
+                codec.encode(ids[i], st, createdAt[i], updatedAt[i], completedAt[i],
+                        arena.chunk(ref), Utf8Arena.pos(ref), descLens[i]);
+            }
+            if (codec.size() >= SAVE_BUFFER_SIZE) codec.writeTo(fos);
+        }
+        codec.writeTo(fos);
+    }
+
+    public synchronized Task add(String description) {
+        int id = nextId++;
+        long now = clock.getAsLong();
+        append(id, description, Task.Status.TODO, now, now, 0);
+        return new Task(id, description, Task.Status.TODO, now, now, 0);
+    }
+
+    public synchronized Task findById(int id) {
+        int slot = index.get(id);
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    public synchronized boolean delete(int id) {
+        int slot = index.remove(id);
+        if (slot < 0) return false;
+        Task.Status st = statusAt(slot);
+        byStatus[st.ordinal()].clear(slot);
+        statusCounts[st.ordinal()]--;
+        if (descLens[slot] > 0) liveBytes -= descLens[slot];
+        liveCount--;
+        if (slotCount > 32 && liveCount < slotCount / 2) compact();
+        return true;
+    }
+
+    public synchronized boolean markStatus(int id, Task.Status status) {
+        int slot = index.get(id);
+        if (slot < 0) return false;
+        Task.Status old = statusAt(slot);
+        if (old == status) return true;
+        byStatus[old.ordinal()].clear(slot);
+        statusCounts[old.ordinal()]--;
+        byStatus[status.ordinal()].set(slot);
+        statusCounts[status.ordinal()]++;
+        long now = clock.getAsLong();
+        updatedAt[slot] = now;
+        completedAt[slot] = status == Task.Status.DONE ? now : 0;
+        return true;
+    }
+
+    // 新描述追加到 arena 末尾，旧字节成为垃圾，等压缩时回收
+    public synchronized boolean updateDescription(int id, String description) {
+        int slot = index.get(id);
+        if (slot < 0) return false;
+        if (descLens[slot] > 0) liveBytes -= descLens[slot];
+        storeDescription(slot, description);
+        updatedAt[slot] = clock.getAsLong();
+        compactIfFragmented();
+        return true;
+    }
+
+    public synchronized List<Task> listAll() {
+        List<Task> out = new ArrayList<>(liveCount);
+        for (int i = 0; i < slotCount; i++) {
+            if (statusAt(i) != null) out.add(materialize(i));
+        }
+        return out;
+    }
+
+    public synchronized List<Task> listByStatus(Task.Status status) {
+        BitSet bits = byStatus[status.ordinal()];
+        List<Task> out = new ArrayList<>(statusCounts[status.ordinal()]);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) out.add(materialize(i));
+        return out;
+    }
+
+    // 游标分页，语义同 TaskStore.listAfter
+    public synchronized List<Task> listAfter(int afterId, int limit) {
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, liveCount)));
+        for (int i = startSlot(afterId); i < slotCount && out.size() < limit; i++) {
+            if (statusAt(i) != null) out.add(materialize(i));
+        }
+        return out;
+    }
+
+    public synchronized List<Task> listAfter(Task.Status status, int afterId, int limit) {
+        BitSet bits = byStatus[status.ordinal()];
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, statusCounts[status.ordinal()])));
+        for (int i = bits.nextSetBit(startSlot(afterId)); i >= 0 && out.size() < limit; i = bits.nextSetBit(i + 1)) {
+            out.add(materialize(i));
+        }
+        return out;
+    }
+
+    public synchronized int countByStatus(Task.Status status) { return statusCounts[status.ordinal()]; }
+
+    public synchronized int size() { return liveCount; }
+
+    // 堆外 arena 已分配的字节数（含尚未回收的垃圾）
+    synchronized long offHeapBytes() { return arena.capacity(); }
+
+    private int startSlot(int afterId) {
+        if (afterId == TaskStore.FROM_START) return 0;
+        int slot = index.get(afterId);
+        if (slot >= 0) return slot + 1;
+        // 游标对应的任务已被删除：找第一个 id 更大的任务，做法同 TaskStore.startSlot
+        if (!idsAscending) {
+            for (int i = 0; i < slotCount; i++) {
+                if (statusAt(i) != null && ids[i] > afterId) return i;
+            }
+            return slotCount;
+        }
+        int lo = 0;
+        int hi = slotCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int j = mid;
+            while (j < hi && statusAt(j) == null) j++;
+            if (j == hi || ids[j] > afterId) hi = mid;
+            else lo = j + 1;
+        }
+        return lo;
+    }
+
+    // 槽位不在任何状态位图中即已删除，返回 null
+    private Task.Status statusAt(int slot) {
+        for (int k = 0; k < byStatus.length; k++) {
+            if (byStatus[k].get(slot)) return STATUSES[k];
+        }
+        return null;
+    }
+
+    private Task materialize(int slot) {
+        return new Task(ids[slot], description(slot), statusAt(slot), createdAt[slot], updatedAt[slot], completedAt[slot]);
+    }
+
+    private String description(int slot) {
+        long ref = descRefs[slot];
+        if (ref < 0) return null;
+        int len = descLens[slot];
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        arena.chunk(ref).get(Utf8Arena.pos(ref), scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private void append(int id, String description, Task.Status status, long created, long updated, long completed) {
+        if (slotCount == ids.length) {
+            int cap = ids.length * 2;
+            ids = Arrays.copyOf(ids, cap);
+            descRefs = Arrays.copyOf(descRefs, cap);
+            descLens = Arrays.copyOf(descLens, cap);
+            createdAt = Arrays.copyOf(createdAt, cap);
+            updatedAt = Arrays.copyOf(updatedAt, cap);
+            completedAt = Arrays.copyOf(completedAt, cap);
+        }
+        int slot = slotCount++;
+        if (slot > 0 && id <= ids[slot - 1]) idsAscending = false;
+        ids[slot] = id;
+        createdAt[slot] = created;
+        updatedAt[slot] = updated;
+        completedAt[slot] = completed;
+        storeDescription(slot, description);
+        index.put(id, slot);
+        byStatus[status.ordinal()].set(slot);
+        statusCounts[status.ordinal()]++;
+        liveCount++;
+    }
+
+    private void storeDescription(int slot, String description) {
+        if (description == null) {
+            descRefs[slot] = -1;
+            descLens[slot] = 0;
+            return;
+        }
+        int max = description.length() * 3;
+        if (max > scratch.length) scratch = new byte[Math.max(max, scratch.length * 2)];
+        int len = TaskCodec.writeUtf8(description, scratch, 0);
+        descRefs[slot] = arena.put(scratch, len);
+        descLens[slot] = len;
+        liveBytes += len;
+    }
+
+    // arena 中垃圾超过一半时压缩
+    private void compactIfFragmented() {
+        if (arena.used() > 1 << 20 && liveBytes < arena.used() / 2) compact();
+    }
+
+    // 去掉已删除的槽位，并把仍被引用的描述拷进一个新的 arena，保持原有顺序
+    private void compact() {
+        Utf8Arena fresh = new Utf8Arena();
+        Task.Status[] statuses = new Task.Status[slotCount];
+        for (int i = 0; i < slotCount; i++) statuses[i] = statusAt(i);
+        for (BitSet bits : byStatus) bits.clear();
+        int w = 0;
+        for (int r = 0; r < slotCount; r++) {
+            if (statuses[r] == null) continue;
+            long ref = descRefs[r];
+            int len = descLens[r];
+            if (ref >= 0) {
+                if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+                arena.chunk(ref).get(Utf8Arena.pos(ref), scratch, 0, len);
+                ref = fresh.put(scratch, len);
+            }
+            ids[w] = ids[r];
+            descRefs[w] = ref;
+            descLens[w] = len;
+            createdAt[w] = createdAt[r];
+            updatedAt[w] = updatedAt[r];
+            completedAt[w] = completedAt[r];
+            index.put(ids[w], w);
+            byStatus[statuses[r].ordinal()].set(w);
+            w++;
+        }
+        slotCount = w;
+        arena = fresh; // 旧的直接内存随 ByteBuffer 被回收而释放
+    }
+
+    // 按顺序访问存活任务的只读视图，供二进制格式写出时逐个构造 Task（调用前须已压缩）
+    private List<Task> liveView() {
+        if (slotCount != liveCount) compact();
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int i) { return materialize(i); }
+
+            @Override
+            public int size() { return slotCount; }
+        };
+    }
+
+    // 只追加的堆外字节区：由若干直接内存块组成，地址 = 块号 << 32 | 块内偏移
+    private static final class Utf8Arena {
+        private static final int FIRST_CHUNK_SIZE = 64 << 10;
+        private static final int MAX_CHUNK_SIZE = 16 << 20;
+
+        private ByteBuffer[] chunks = new ByteBuffer[4];
+        private int chunkCount;
+        private long used;
+        private long capacity;
+
+        long put(byte[] src, int len) {
+            ByteBuffer cur = chunkCount == 0 ? null : chunks[chunkCount - 1];
+            if (cur == null || cur.remaining() < len) cur = newChunk(len);
+            int pos = cur.position();
+            cur.put(src, 0, len);
+            used += len;
+            return (long) (chunkCount - 1) << 32 | pos;
+        }
+
+        ByteBuffer chunk(long ref) { return chunks[(int) (ref >>> 32)]; }
+
+        static int pos(long ref) { return (int) ref; }
+
+        long used() { return used; }
+
+        long capacity() { return capacity; }
+
+        // 块大小从 64KB 开始倍增到 16MB；超长描述单独占一块
+        private ByteBuffer newChunk(int minSize) {
+            if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            int size = chunkCount == 0 ? FIRST_CHUNK_SIZE
+                    : (int) Math.min(MAX_CHUNK_SIZE, chunks[chunkCount - 1].capacity() * 2L);
+            ByteBuffer b = ByteBuffer.allocateDirect(Math.max(size, minSize));
+            chunks[chunkCount++] = b;
+            capacity += b.capacity();
+            return b;
+        }
+    }
+}
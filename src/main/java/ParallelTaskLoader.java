@@ -0,0 +1,101 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// 大文件加载：按换行对齐切块，每块内存映射后在 ForkJoinPool 上并行解码，
+// 结果按块顺序合并，因此与逐行读取得到的任务顺序一致（坏行同样跳过，开启指标时计入跳过行数）
+class ParallelTaskLoader {
+    static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+
+    private ParallelTaskLoader() {}
+
+    static List<Task> load(File file) throws IOException {
+        return load(file, null);
+    }
+
+    static List<Task> load(File file, TaskMetrics metrics) throws IOException {
+        return load(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool(), metrics);
+    }
+
+    static List<Task> load(File file, long chunkSize, ForkJoinPool pool) throws IOException {
+        return load(file, chunkSize, pool, null);
+    }
+
+    static List<Task> load(File file, long chunkSize, ForkJoinPool pool, TaskMetrics metrics) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = split(ch, chunkSize);
+            List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(chunks.size());
+            for (long[] c : chunks) {
+                parts.add(pool.submit(() -> decodeChunk(ch.map(FileChannel.MapMode.READ_ONLY, c[0], c[1] - c[0]), metrics)));
+            }
+            List<Task> out = new ArrayList<>();
+            for (ForkJoinTask<List<Task>> part : parts) out.addAll(part.get());
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("加载被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    // 把文件切成 [start, end) 区间，每个区间都在 '\n' 之后结束（最后一块除外）
+    static List<long[]> split(FileChannel ch, long chunkSize) throws IOException {
+        long size = ch.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // 向后找到下一个换行，使块边界落在行尾
+            search:
+            while (end < size) {
+                probe.clear();
+                int n = ch.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        end += i + 1;
+                        break search;
+                    }
+                }
+                end += n;
+            }
+            chunks.add(new long[] { start, end });
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static List<Task> decodeChunk(MappedByteBuffer buf, TaskMetrics metrics) {
+        List<Task> out = new ArrayList<>();
+        int skipped = 0;
+        TaskCodec codec = new TaskCodec();
+        int limit = buf.limit();
+        int pos = 0;
+        while (pos < limit) {
+            // 与 BufferedReader.readLine 一致：'\n'、'\r' 或 "\r\n" 都结束一行
+            int end = pos;
+            while (end < limit && buf.get(end) != '\n' && buf.get(end) != '\r') end++;
+            Task t = codec.decode(buf, pos, end);
+            if (t != null) out.add(t);
+            else if (end > pos) skipped++;
+            pos = end < limit && buf.get(end) == '\r' && end + 1 < limit && buf.get(end + 1) == '\n' ? end + 2 : end + 1;
+        }
+        if (metrics != null) metrics.addSkippedLines(skipped);
+        return out;
+    }
+}
@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// 分片 TaskStore：按 id 取模把任务分到 N 个子 store，每个子 store 各有一个数据文件 <filePath>.<i>
+// （日志模式下还有各自的 .log）。
+// - load / save 各分片并行进行，可以同时利用多个核和磁盘
+// - findById / markStatus / updateDescription / delete 直接交给 id 所属的分片，只锁该分片
+// - listAll / listByStatus 合并各分片结果并按 id 排序
+// id 由本类统一分配；各分片自身线程安全，因此不同分片上的操作可以并发进行。
+public class ShardedTaskStore {
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    private final String filePath;
+    private final TaskStore.Format format;
+    private final TaskStore[] shards;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private boolean journaled;
+    // 分片数减少后多出来的旧分片文件：内容已并入现有分片，保存成功后删除
+    private final List<File> orphans = new ArrayList<>();
+
+    public ShardedTaskStore(String filePath, int shardCount) {
+        this(filePath, shardCount, TaskStore.Format.TEXT);
+    }
+
+    public ShardedTaskStore(String filePath, int shardCount, TaskStore.Format format) {
+        if (shardCount < 1) throw new IllegalArgumentException("分片数必须为正数：" + shardCount);
+        this.filePath = filePath;
+        this.format = format;
+        shards = new TaskStore[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new TaskStore(shardFile(filePath, i).getPath(), format);
+    }
+
+    // 第 i 个分片的数据文件
+    static File shardFile(String filePath, int i) {
+        return new File(filePath + "." + i);
+    }
+
+    public int shardCount() { return shards.length; }
+
+    // 各分片开启日志模式，参数含义同 TaskStore.enableJournal；须在 load() 之前调用
+    public void enableJournal(int syncEvery, long compactBytes) throws IOException {
+        for (TaskStore s : shards) s.enableJournal(syncEvery, compactBytes);
+        journaled = true;
+    }
+
+    // 并行加载各分片。分片数与写入时不同时，不属于本分片的任务会被移到所属分片，
+    // 多出来的旧分片文件也会并入，下次保存后生效
+    public void load() {
+        parallel(TaskStore::load);
+        for (int i = 0; i < shards.length; i++) {
+            for (Task t : shards[i].listAll()) {
+                int owner = shardOf(t.getId());
+                if (owner == i) continue;
+                shards[i].delete(t.getId());
+                shards[owner].insert(t); // 重复 ID 只保留先出现的
+            }
+        }
+        for (int i = shards.length; ; i++) {
+            File f = shardFile(filePath, i);
+            File log = new File(f.getPath() + ".log");
+            if (!f.exists() && !log.exists()) break;
+            TaskStore old = new TaskStore(f.getPath(), format);
+            try {
+                if (journaled) old.enableJournal(0, 0);
+            } catch (IOException e) {
+                System.out.println("无法打开日志文件：" + e.getMessage());
+            }
+            old.load();
+            old.close();
+            for (Task t : old.listAll()) shards[shardOf(t.getId())].insert(t);
+            orphans.add(f);
+        }
+        int max = 1;
+        for (TaskStore s : shards) max = Math.max(max, s.nextId());
+        nextId.set(max);
+    }
+
+    // 并行保存各分片，全部成功时返回 true。只有每个分片都保存成功，旧分片文件（连同日志和
+    // SLOTTED 格式的描述文件）才删除：其中的任务可能只在内存里，否则保存失败时就丢了；下次保存再试
+    public boolean save() {
+        AtomicBoolean ok = new AtomicBoolean(true);
+        parallel(s -> {
+            if (!s.save()) ok.set(false);
+        });
+        if (!ok.get()) {
+            if (!orphans.isEmpty()) System.out.println("有分片保存失败，暂不删除旧分片文件");
+            return false;
+        }
+        for (File f : orphans) {
+            SlottedTaskFile.delete(f);
+            new File(f.getPath() + ".log").delete();
+        }
+        orphans.clear();
+        return true;
+    }
+
+    public void close() {
+        parallel(TaskStore::close);
+    }
+
+    public Task add(String description) {
+        int id = nextId.getAndIncrement();
+        long now = System.currentTimeMillis();
+        return shards[shardOf(id)].insert(new Task(id, description, Task.Status.TODO, now, now, 0));
+    }
+
+    public Task findById(int id) { return shards[shardOf(id)].findById(id); }
+
+    public boolean markStatus(int id, Task.Status status) { return shards[shardOf(id)].markStatus(id, status); }
+
+    public boolean updateDescription(int id, String description) {
+        return shards[shardOf(id)].updateDescription(id, description);
+    }
+
+    public boolean delete(int id) { return shards[shardOf(id)].delete(id); }
+
+    // 按 id 升序；各分片的结果本身基本有序，排序时 TimSort 只需归并这几段
+    public List<Task> listAll() {
+        List<Task> out = new ArrayList<>(size());
+        for (TaskStore s : shards) out.addAll(s.listAll());
+        out.sort(BY_ID);
+        return out;
+    }
+
+    public List<Task> listByStatus(Task.Status status) {
+        List<Task> out = new ArrayList<>(countByStatus(status));
+        for (TaskStore s : shards) out.addAll(s.listByStatus(status));
+        out.sort(BY_ID);
+        return out;
+    }
+
+    public int countByStatus(Task.Status status) {
+        int n = 0;
+        for (TaskStore s : shards) n += s.countByStatus(status);
+        return n;
+    }
+
+    public int size() {
+        int n = 0;
+        for (TaskStore s : shards) n += s.size();
+        return n;
+    }
+
+    private int shardOf(int id) {
+        return Math.floorMod(id, shards.length);
+    }
+
+    // 每个分片一个线程执行 action，等待全部完成。load / save 主要是 I/O，
+    // 不放进公共 ForkJoinPool，以免阻塞其中并行解码大文件的任务
+    private void parallel(Consumer<TaskStore> action) {
+        if (shards.length == 1) {
+            action.accept(shards[0]);
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(shards.length, r -> {
+            Thread th = new Thread(r, "task-shard");
+            th.setDaemon(true);
+            return th;
+        });
+        try {
+            List<Future<?>> parts = new ArrayList<>(shards.length);
+            for (TaskStore s : shards) parts.add(pool.submit(() -> action.accept(s)));
+            for (Future<?> f : parts) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 定长槽位格式（TaskStore.Format.SLOTTED），支持只写变更的增量保存：
+//   槽位文件 <data>             magic "TDS1"(4) | version int(4) | 描述文件代号 gen long(8) | 槽位 ...
+//   槽位     48 字节            id int(4) | status byte(1) | 保留(3) | updated long(8) | completed long(8) |
+//                               created long(8) | 描述偏移 long(8) | 描述字节数 int(4，-1 表示 null) | 保留(4)
+//   描述文件 <data>.heap.<gen>  UTF-8 描述首尾相接，只追加
+// 版本 1 的槽位为 24 字节、没有时间戳（id | status | 保留(3) | 描述偏移 | 描述字节数 | 保留(4)），仍可读取，
+// 打开后第一次保存时整体重写为当前版本。
+// 改状态只原地改写状态和时间戳 [4, 24)，删除把状态字节写成 0xFF，改描述先追加新描述再改写槽位的 [8, 44)，
+// 新增任务追加到末尾（保持插入顺序）。空槽和失效描述在整体重写时回收：重写先生成新一代描述文件，
+// 再原子替换槽位文件，所以任何时刻槽位文件引用的描述文件都是完整的。
+// 不是线程安全的，由 TaskStore 在锁内调用
+class SlottedTaskFile implements Closeable {
+    static final byte[] MAGIC = { 'T', 'D', 'S', '1' };
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 48;
+    private static final int V1_RECORD_SIZE = 24;
+    // 变更标记，可按位组合
+    static final int STATUS = 1;
+    static final int DESCRIPTION = 2;
+    static final int ALL = STATUS | DESCRIPTION;
+    // 任务重新加入（删除后复用了同一 id）：文件里原有的槽位作废，追加到末尾以保持插入顺序
+    static final int APPENDED = 4;
+    private static final byte DELETED = (byte) 0xFF;
+    private static final String HEAP_SUFFIX = ".heap.";
+    // 失效的描述字节超过该值且超过有效字节数时整体重写
+    private static final long REWRITE_GARBAGE_BYTES = 1L << 20;
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    private final FileChannel slots;
+    private final FileChannel heap;
+    private final int version;
+    private final IntIntMap slotOf = new IntIntMap(); // id -> 槽位
+    private int[] descLens = new int[16];             // 每个槽位描述的字节数，空槽为 0
+    private int slotCount;                            // 含空槽
+    private long heapSize;
+    private long liveBytes;                           // 仍被引用的描述字节数
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private byte[] pending = new byte[8192];
+
+    private SlottedTaskFile(File file, long gen, int version) throws IOException {
+        this.version = version;
+        FileChannel s = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.heap = FileChannel.open(heapFile(file, gen).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        this.slots = s;
+        this.heapSize = heap.size();
+    }
+
+    // 文件是否以槽位格式的 magic 开头
+    static boolean isSlotted(File file) {
+        return readGen(file) >= 0;
+    }
+
+    private int recordSize() {
+        return version == 1 ? V1_RECORD_SIZE : RECORD_SIZE;
+    }
+
+    // 读取全部任务（只读，不保留打开的文件）
+    static List<Task> read(File file) throws IOException {
+        List<Task> out = new ArrayList<>();
+        open(file, out).close();
+        return out;
+    }
+
+    // 打开已有文件用于增量写入，文件中的任务按槽位顺序放入 out；损坏的槽位跳过，视为空槽
+    static SlottedTaskFile open(File file, List<Task> out) throws IOException {
+        long gen = readGen(file);
+        if (gen < 0) throw new IOException("不是槽位格式的任务文件");
+        SlottedTaskFile f = new SlottedTaskFile(file, gen, readVersion(file));
+        try {
+            f.load(out);
+        } catch (IOException | RuntimeException e) {
+            f.close();
+            throw e;
+        }
+        return f;
+    }
+
+    // 把 tasks 整体写成新一代文件并打开；失败时原有文件保持不变
+    static SlottedTaskFile rewrite(File file, List<Task> tasks) throws IOException {
+        long gen = Math.max(readGen(file), 0) + 1;
+        File heapFile = heapFile(file, gen);
+        int n = tasks.size();
+        long[] offsets = new long[n];
+        int[] lens = new int[n];
+        long[] heapBytes = { 0 };
+        SnapshotFile.write(heapFile, os -> {
+            byte[] buf = new byte[64 << 10];
+            int len = 0;
+            for (int i = 0; i < n; i++) {
+                String desc = tasks.get(i).getDescription();
+                if (desc == null) {
+                    lens[i] = -1;
+                    continue;
+                }
+                int max = desc.length() * 3;
+                if (len + max > buf.length) {
+                    os.write(buf, 0, len);
+                    len = 0;
+                    if (max > buf.length) buf = new byte[max];
+                }
+                int end = TaskCodec.writeUtf8(desc, buf, len);
+                offsets[i] = heapBytes[0];
+                lens[i] = end - len;
+                heapBytes[0] += end - len;
+                len = end;
+            }
+            os.write(buf, 0, len);
+        });
+        try {
+            SnapshotFile.write(file, os -> {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 64 << 10));
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(gen);
+                for (int i = 0; i < n; i++) {
+                    Task t = tasks.get(i);
+                    out.writeInt(t.getId());
+                    out.writeByte(t.getStatus().ordinal());
+                    out.write(0);
+                    out.writeShort(0);
+                    out.writeLong(t.getUpdatedAt());
+                    out.writeLong(t.getCompletedAt());
+                    out.writeLong(t.getCreatedAt());
+                    out.writeLong(offsets[i]);
+                    out.writeInt(lens[i]);
+                    out.writeInt(0);
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            heapFile.delete();
+            throw e;
+        }
+        deleteOtherHeaps(file, gen);
+
+        SlottedTaskFile f = new SlottedTaskFile(file, gen, VERSION);
+        f.ensureSlots(n);
+        for (int i = 0; i < n; i++) {
+            f.slotOf.put(tasks.get(i).getId(), i);
+            f.descLens[i] = Math.max(lens[i], 0);
+            f.liveBytes += f.descLens[i];
+        }
+        f.slotCount = n;
+        return f;
+    }
+
+    // 本次要写的变更数相对文件太大（逐条原地写不如顺序重写快），或空槽、失效描述太多时，应整体重写；
+    // 旧版本的文件总是重写
+    boolean shouldRewrite(int changes) {
+        int empty = slotCount - slotOf.size();
+        long garbage = heapSize - liveBytes;
+        return version != VERSION
+                || changes > 64 && changes > slotCount / 8
+                || empty > 64 && empty > slotOf.size()
+                || garbage > REWRITE_GARBAGE_BYTES && garbage > liveBytes;
+    }
+
+    long heapSize() { return heapSize; }
+
+    // 写入一批变更：tasks[i] 为 null 表示删除 ids[i]，否则按 flags[i]（STATUS / DESCRIPTION 的组合）
+    // 更新；文件里还没有的任务整条写入。先追加并落盘新描述，再改写槽位，最后 fsync 槽位文件。
+    // 返回写入的字节数
+    long apply(int[] ids, Task[] tasks, int[] flags, int n) throws IOException {
+        long[] offsets = new long[n];
+        int[] lens = new int[n];
+        int len = 0;
+        for (int i = 0; i < n; i++) {
+            Task t = tasks[i];
+            if (t == null) continue;
+            boolean isNew = slotOf.get(ids[i]) < 0;
+            if (!isNew && (flags[i] & DESCRIPTION) == 0) continue;
+            String desc = t.getDescription();
+            if (desc == null) {
+                lens[i] = -1;
+                continue;
+            }
+            if (len + desc.length() * 3 > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(len + desc.length() * 3, pending.length * 2));
+            }
+            int end = TaskCodec.writeUtf8(desc, pending, len);
+            offsets[i] = heapSize + len;
+            lens[i] = end - len;
+            len = end;
+        }
+        long written = len;
+        if (len > 0) {
+            writeFully(heap, ByteBuffer.wrap(pending, 0, len), heapSize);
+            heapSize += len;
+            heap.force(false);
+        }
+
+        for (int i = 0; i < n; i++) {
+            int id = ids[i];
+            int slot = slotOf.get(id);
+            Task t = tasks[i];
+            if (t == null) {
+                if (slot < 0) continue;
+                written += markDeleted(slot);
+                slotOf.remove(id);
+                continue;
+            }
+            if (slot >= 0 && (flags[i] & APPENDED) != 0) {
+                written += markDeleted(slot);
+                slotOf.remove(id);
+                slot = -1;
+            }
+            if (slot < 0) {
+                slot = slotCount++;
+                ensureSlots(slotCount);
+                slotOf.put(id, slot);
+                written += writeRecord(slot, t, offsets[i], lens[i]);
+            } else if (flags[i] == STATUS) {
+                record.clear();
+                record.put((byte) t.getStatus().ordinal()).put((byte) 0).putShort((short) 0)
+                        .putLong(t.getUpdatedAt()).putLong(t.getCompletedAt()).flip();
+                written += writeFully(slots, record, slotPos(slot) + 4);
+                continue; // 描述没变
+            } else if (flags[i] == DESCRIPTION) {
+                liveBytes -= descLens[slot];
+                record.clear();
+                record.putLong(t.getUpdatedAt()).putLong(t.getCompletedAt()).putLong(t.getCreatedAt())
+                        .putLong(offsets[i]).putInt(lens[i]).flip();
+                written += writeFully(slots, record, slotPos(slot) + 8);
+            } else {
+                liveBytes -= descLens[slot];
+                written += writeRecord(slot, t, offsets[i], lens[i]);
+            }
+            descLens[slot] = Math.max(lens[i], 0);
+            liveBytes += descLens[slot];
+        }
+        slots.force(false);
+        return written;
+    }
+
+    // 把槽位写成空槽，返回写入的字节数
+    private int markDeleted(int slot) throws IOException {
+        record.clear();
+        record.put(DELETED).flip();
+        int n = writeFully(slots, record, slotPos(slot) + 4);
+        liveBytes -= descLens[slot];
+        descLens[slot] = 0;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            slots.close();
+        } finally {
+            heap.close();
+        }
+    }
+
+    private void load(List<Task> out) throws IOException {
+        long heapLen = heap.size();
+        if (heapLen > Integer.MAX_VALUE - 8) throw new IOException("描述文件过大：" + heapLen);
+        byte[] descs = new byte[(int) heapLen];
+        readFully(heap, ByteBuffer.wrap(descs), 0);
+
+        int recordSize = recordSize();
+        long count = (slots.size() - HEADER_SIZE) / recordSize; // 末尾写了一半的槽位忽略
+        if (count > Integer.MAX_VALUE) throw new IOException("槽位文件过大");
+        ensureSlots((int) count);
+        ByteBuffer buf = ByteBuffer.allocate(recordSize * 4096);
+        long pos = HEADER_SIZE;
+        int slot = 0;
+        while (slot < count) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), (count - slot) * recordSize));
+            readFully(slots, buf, pos);
+            pos += buf.limit();
+            buf.flip();
+            while (buf.remaining() >= recordSize) {
+                int id = buf.getInt();
+                int st = buf.get();
+                buf.position(buf.position() + 3);
+                long updated = 0;
+                long completed = 0;
+                long created = 0;
+                if (version != 1) {
+                    updated = buf.getLong();
+                    completed = buf.getLong();
+                    created = buf.getLong();
+                }
+                long offset = buf.getLong();
+                int len = buf.getInt();
+                buf.getInt();
+                slotCount = ++slot;
+                boolean valid = st >= 0 && st < STATUSES.length && !slotOf.containsKey(id)
+                        && (len == -1 || len >= 0 && offset >= 0 && offset + len <= heapLen);
+                if (!valid) continue;
+                String desc = len < 0 ? null : new String(descs, (int) offset, len, StandardCharsets.UTF_8);
+                slotOf.put(id, slot - 1);
+                descLens[slot - 1] = Math.max(len, 0);
+                liveBytes += descLens[slot - 1];
+                out.add(new Task(id, desc, STATUSES[st], created, updated, completed));
+            }
+        }
+    }
+
+    private int writeRecord(int slot, Task t, long offset, int len) throws IOException {
+        record.clear();
+        record.putInt(t.getId()).put((byte) t.getStatus().ordinal()).put((byte) 0).putShort((short) 0)
+                .putLong(t.getUpdatedAt()).putLong(t.getCompletedAt()).putLong(t.getCreatedAt())
+                .putLong(offset).putInt(len).putInt(0).flip();
+        return writeFully(slots, record, slotPos(slot));
+    }
+
+    // 只有当前版本的文件会被增量写入
+    private static long slotPos(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity > descLens.length) descLens = Arrays.copyOf(descLens, Math.max(capacity, descLens.length * 2));
+    }
+
+    // 返回写入的字节数
+    private static int writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        int n = buf.remaining();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        return n;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new EOFException();
+            pos += n;
+        }
+    }
+
+    private static File heapFile(File file, long gen) {
+        return new File(file.getPath() + HEAP_SUFFIX + gen);
+    }
+
+    // 文件头中的描述文件代号；不是槽位格式时返回 -1
+    private static long readGen(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) return -1;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            byte[] head = new byte[MAGIC.length];
+            in.readFully(head);
+            int version = in.readInt();
+            if (!Arrays.equals(head, MAGIC) || version < 1 || version > VERSION) return -1;
+            long gen = in.readLong();
+            return gen >= 0 ? gen : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // 调用前已由 readGen 确认是槽位格式
+    private static int readVersion(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.skipBytes(MAGIC.length);
+            return in.readInt();
+        }
+    }
+
+    // 新的槽位文件已经落盘，旧代的描述文件不再被引用
+    // 删除槽位文件及其全部描述文件（不论是不是槽位格式，调用方不再需要它时）
+    static void delete(File file) {
+        deleteOtherHeaps(file, -1);
+        file.delete();
+    }
+
+    private static void deleteOtherHeaps(File file, long gen) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + HEAP_SUFFIX;
+        File[] old = dir == null ? null : dir.listFiles((d, name) ->
+                name.startsWith(prefix) && !name.equals(prefix + gen) && !name.endsWith(SnapshotFile.TEMP_SUFFIX));
+        if (old == null) return;
+        for (File f : old) f.delete();
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// 崩溃安全的快照写入：内容先写进同目录下的 <目标>.tmp，fsync 后原子重命名覆盖目标文件。
+// 任何时刻目标文件要么是旧快照、要么是完整的新快照，不会出现写了一半的文件。
+// 写入经由一块直接内存缓冲交给 FileChannel，不再经过 BufferedWriter / FileOutputStream 的二次拷贝。
+final class SnapshotFile {
+    // 负责写出快照内容
+    interface Body {
+        void writeTo(OutputStream os) throws IOException;
+    }
+
+    static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 1 << 20;
+    // 每个线程复用一块直接缓冲，避免每次保存都申请堆外内存
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private SnapshotFile() {}
+
+    // 原子地用 body 写出的内容替换 target；失败时 target 保持原样，临时文件被删除
+    static void write(File target, Body body) throws IOException {
+        Path path = target.toPath().toAbsolutePath();
+        Path tmp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        boolean done = false;
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChannelOutput out = new ChannelOutput(ch, BUFFERS.get());
+                body.writeTo(out);
+                out.flush();
+                // 重命名之前内容必须已经落盘，否则掉电后可能看到改名成功但内容为空的文件
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            done = true;
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+        syncDirectory(path.getParent());
+    }
+
+    // 让重命名本身也落盘；部分平台（如 Windows）不能打开目录，忽略即可
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // 尽力而为
+        }
+    }
+
+    // 写满直接缓冲后整块交给 FileChannel；不关闭底层通道
+    private static final class ChannelOutput extends OutputStream {
+        private final FileChannel ch;
+        private final ByteBuffer buf;
+
+        ChannelOutput(FileChannel ch, ByteBuffer buf) {
+            this.ch = ch;
+            this.buf = buf;
+            buf.clear();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buf.hasRemaining()) drain();
+            buf.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buf.hasRemaining()) drain();
+                int n = Math.min(len, buf.remaining());
+                buf.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+}
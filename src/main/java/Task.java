@@ -3,45 +3,109 @@ import java.util.Objects;
 public class Task {
     public enum Status { TODO, DONE }
 
+    // 三种时间戳，供 TaskStore.listBetween 按时间区间查询
+    public enum Time { CREATED, UPDATED, COMPLETED }
+
     private final int id;
-    private String description;
-    private Status status;
+    // volatile：ConcurrentTaskStore 中其他线程的修改须立即可见
+    private volatile String description;
+    private volatile Status status;
+    // 毫秒时间戳，0 表示未知（旧数据文件中的任务没有时间戳）；由 store 在变更时维护
+    private volatile long createdAt;
+    private volatile long updatedAt;
+    private volatile long completedAt; // 最近一次标记为 DONE 的时间，未完成时为 0
 
     public Task(int id, String description, Status status) {
+        this(id, description, status, 0, 0, 0);
+    }
+
+    public Task(int id, String description, Status status, long createdAt, long updatedAt, long completedAt) {
         this.id = id;
         this.description = description;
         this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.completedAt = completedAt;
     }
 
     public int getId() { return id; }
     public String getDescription() { return description; }
     public Status getStatus() { return status; }
+    public long getCreatedAt() { return createdAt; }
+    public long getUpdatedAt() { return updatedAt; }
+    public long getCompletedAt() { return completedAt; }
+
+    public long getTime(Time which) {
+        switch (which) {
+            case CREATED: return createdAt;
+            case UPDATED: return updatedAt;
+            default: return completedAt;
+        }
+    }
+
+    boolean hasTimes() { return createdAt != 0 || updatedAt != 0 || completedAt != 0; }
+
+    // 属于某个 TaskStore 时是它当前的编辑令牌（见 TaskStore.editable），调用方自己创建的任务为 null。
+    // store 中的任务可能同时在快照里，只能经由 store 修改，直接调用 setter 会抛出异常
+    Object edit;
+
+    public void setDescription(String description) {
+        checkWritable();
+        assignDescription(description);
+    }
+
+    public void setStatus(Status status) {
+        checkWritable();
+        this.status = status;
+    }
+
+    private void checkWritable() {
+        if (edit != null) throw new UnsupportedOperationException("任务属于 store，须经由 store 修改");
+    }
+
+    // 以下供 store 修改自己的任务，不检查 edit
+    void assignDescription(String description) { this.description = description; }
+    void assignStatus(Status status) { this.status = status; }
 
-    public void setDescription(String description) { this.description = description; }
-    public void setStatus(Status status) { this.status = status; }
+    // 时间戳须经由 store 修改，直接调用不会更新时间索引
+    void setTimes(long createdAt, long updatedAt, long completedAt) {
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.completedAt = completedAt;
+    }
 
-    // 用于保存到文件：id|status|description
+    // 用于保存到文件：id|status|description，有时间戳时为 id|status,created,updated,completed|description
     public String encode() {
-        return id + "|" + status + "|" + description;
+        String desc = String.valueOf(getDescription());
+        return new StringBuilder(desc.length() + 64)
+                .append(id).append('|').append(encodeStatus()).append('|').append(desc)
+                .toString();
+    }
+
+    // 状态字段：status 或 status,created,updated,completed（见 TaskCodec.decodeStatus）
+    String encodeStatus() {
+        if (!hasTimes()) return status.name();
+        return status.name() + ',' + createdAt + ',' + updatedAt + ',' + completedAt;
+    }
+
+    // 换一个 id 的副本，供 TaskStore.renumber() 使用
+    Task withId(int newId) {
+        return new Task(newId, description, status, createdAt, updatedAt, completedAt);
+    }
+
+    // 只读副本，供 TaskStore 返回归档中的任务
+    Task freeze() {
+        return new Frozen(id, getDescription(), status, createdAt, updatedAt, completedAt);
     }
 
     public static Task decode(String line) {
         // 跳过坏行：不抛异常，返回 null（调用处负责忽略）
-        try {
-            String[] parts = line.split("\\|", 3);
-            if (parts.length < 3) return null;
-            int id = Integer.parseInt(parts[0].trim());
-            Status st = Status.valueOf(parts[1].trim());
-            String desc = parts[2];
-            return new Task(id, desc, st);
-        } catch (Exception e) {
-            return null;
-        }
+        return TaskCodec.decode(line, 0, line.length(), new long[3]);
     }
 
     @Override
     public String toString() {
-        return String.format("%-4d [%s] %s", id, status, description);
+        return String.format("%-4d [%s] %s", id, status, getDescription());
     }
 
     @Override
@@ -52,6 +116,26 @@ public class Task {
 
     @Override
     public int hashCode() { return Objects.hash(id); }
+
+    private static final class Frozen extends Task {
+        Frozen(int id, String description, Status status, long createdAt, long updatedAt, long completedAt) {
+            super(id, description, status, createdAt, updatedAt, completedAt);
+        }
+
+        @Override
+        public void setDescription(String description) { throw new UnsupportedOperationException("快照中的任务不可修改"); }
+
+        @Override
+        public void setStatus(Status status) { throw new UnsupportedOperationException("快照中的任务不可修改"); }
+
+        @Override
+        void setTimes(long createdAt, long updatedAt, long completedAt) {
+            throw new UnsupportedOperationException("快照中的任务不可修改");
+        }
+
+        @Override
+        Task freeze() { return this; }
+    }
 }
 
 
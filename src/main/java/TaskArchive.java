@@ -0,0 +1,232 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 已完成任务的冷归档（TaskStore.archiveDone）：
+//   <归档文件>      只追加的压缩块：原长(int) + 压缩后长度(int) + Deflate 压缩的若干行 id|status|description
+//   <归档文件>.idx  魔数 + 条目数 + 按 id 排序的定长条目 (id int, 所在块的偏移 long)，每次归档后原子替换
+// 查找时在索引上二分，只读取并解压命中的那一块；索引读进直接内存（不保留映射，Windows 上也能替换索引文件），
+// 索引和任务都不常驻堆内存。
+// 同一 id 再次归档时索引指向新的块，旧块中的记录作废。不是线程安全的，由 TaskStore 的锁保护
+class TaskArchive {
+    // 每块压缩前约 64KB：块越大压缩率越高，单次查找要解压的字节也越多
+    static final int BLOCK_SIZE = 64 << 10;
+    private static final int MAGIC = 0x54444149; // "TDAI"
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 12;
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private final File file;
+    private final File indexFile;
+    private ByteBuffer index; // 归档为空时为 null
+    private int count;
+    // 最近解压的一块：连续查找同一块里的任务时不必重复解压
+    private long cachedOffset = -1;
+    private List<Task> cachedBlock;
+
+    TaskArchive(File file) throws IOException {
+        this.file = file;
+        this.indexFile = new File(file.getPath() + ".idx");
+        openIndex();
+    }
+
+    File getFile() { return file; }
+
+    // 已归档的任务数
+    int size() { return count; }
+
+    // 已归档的最大 id；归档为空时为 0
+    int maxId() {
+        return count == 0 ? 0 : Math.max(0, idAt(count - 1));
+    }
+
+    // 全部已归档的 id（升序）
+    int[] ids() {
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) out[i] = idAt(i);
+        return out;
+    }
+
+    // 写入任务并 fsync，然后原子替换索引；返回写入的字节数。
+    // 中途失败时归档文件末尾最多多出没有索引指向的块，已归档的内容不受影响
+    long append(List<Task> tasks) throws IOException {
+        int n = tasks.size();
+        if (n == 0) return 0;
+        int[] ids = new int[n];
+        long[] offsets = new long[n];
+        long pos = file.length();
+        long start = pos;
+        TaskCodec codec = new TaskCodec();
+        Deflater deflater = new Deflater();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            for (int i = 0; i < n; i++) {
+                Task t = tasks.get(i);
+                if (!(t instanceof LazyTaskFile.LazyTask) || !((LazyTaskFile.LazyTask) t).encodeTo(codec)) codec.encode(t);
+                ids[i] = t.getId();
+                offsets[i] = pos;
+                if (codec.size() >= BLOCK_SIZE || i == n - 1) pos += writeBlock(out, codec, deflater, compressed);
+            }
+            out.getFD().sync();
+        } finally {
+            deflater.end();
+        }
+        writeIndex(ids, offsets);
+        return pos - start + HEADER_SIZE + (long) count * ENTRY_SIZE;
+    }
+
+    // 按 id 查找已归档的任务，不存在时返回 null
+    Task find(int id) throws IOException {
+        long offset = offsetOf(id);
+        if (offset < 0) return null;
+        for (Task t : block(offset)) {
+            if (t.getId() == id) return t;
+        }
+        return null;
+    }
+
+    private int idAt(int i) {
+        return index.getInt(HEADER_SIZE + i * ENTRY_SIZE);
+    }
+
+    private long offsetAt(int i) {
+        return index.getLong(HEADER_SIZE + i * ENTRY_SIZE + 4);
+    }
+
+    private long offsetOf(int id) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = idAt(mid);
+            if (k < id) lo = mid + 1;
+            else if (k > id) hi = mid - 1;
+            else return offsetAt(mid);
+        }
+        return -1;
+    }
+
+    private static long writeBlock(OutputStream out, TaskCodec codec, Deflater deflater,
+                                   ByteArrayOutputStream compressed) throws IOException {
+        deflater.reset();
+        deflater.setInput(codec.buffer(), 0, codec.size());
+        deflater.finish();
+        compressed.reset();
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int k = deflater.deflate(chunk);
+            compressed.write(chunk, 0, k);
+        }
+        out.write(ByteBuffer.allocate(8).putInt(codec.size()).putInt(compressed.size()).array());
+        compressed.writeTo(out);
+        codec.reset();
+        return 8 + compressed.size();
+    }
+
+    private List<Task> block(long offset) throws IOException {
+        if (offset == cachedOffset) return cachedBlock;
+        byte[] raw;
+        try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+            f.seek(offset);
+            int rawLen = f.readInt();
+            int compressedLen = f.readInt();
+            // 长度来自文件，分配前先核对：压缩数据不会超出文件末尾，Deflate 的压缩比也不超过约 1032:1
+            if (compressedLen < 0 || compressedLen > f.length() - f.getFilePointer()
+                    || rawLen < 0 || rawLen > (long) compressedLen * MAX_DEFLATE_RATIO) {
+                throw new IOException("归档块已损坏：" + offset);
+            }
+            byte[] compressed = new byte[compressedLen];
+            f.readFully(compressed);
+            raw = new byte[rawLen];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                if (inflater.inflate(raw) != rawLen) throw new IOException("归档块已损坏：" + offset);
+            } catch (DataFormatException e) {
+                throw new IOException("归档块已损坏：" + offset, e);
+            } finally {
+                inflater.end();
+            }
+        }
+        ByteBuffer buf = ByteBuffer.wrap(raw);
+        TaskCodec codec = new TaskCodec();
+        List<Task> tasks = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] != '\n') continue;
+            Task t = codec.decode(buf, lineStart, i);
+            if (t != null) tasks.add(t);
+            lineStart = i + 1;
+        }
+        cachedOffset = offset;
+        cachedBlock = tasks;
+        return tasks;
+    }
+
+    // 把新条目（按 id 排序后）与现有索引归并写出，id 相同时以新条目为准
+    private void writeIndex(int[] ids, long[] offsets) throws IOException {
+        int n = ids.length;
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) order[i] = (long) ids[i] << 32 | i;
+        Arrays.sort(order);
+        int replaced = 0;
+        for (int id : ids) if (offsetOf(id) >= 0) replaced++;
+        int merged = count + n - replaced;
+        SnapshotFile.write(indexFile, os -> {
+            DataOutputStream out = new DataOutputStream(os);
+            out.writeInt(MAGIC);
+            out.writeInt(merged);
+            int a = 0;
+            int b = 0;
+            while (a < count || b < n) {
+                int j = b < n ? (int) order[b] : -1;
+                if (b >= n || (a < count && idAt(a) < ids[j])) {
+                    out.writeInt(idAt(a));
+                    out.writeLong(offsetAt(a));
+                    a++;
+                    continue;
+                }
+                if (a < count && idAt(a) == ids[j]) a++;
+                out.writeInt(ids[j]);
+                out.writeLong(offsets[j]);
+                b++;
+            }
+            out.flush();
+        });
+        openIndex();
+    }
+
+    private void openIndex() throws IOException {
+        index = null;
+        count = 0;
+        cachedOffset = -1;
+        cachedBlock = null;
+        if (!indexFile.exists()) return;
+        try (RandomAccessFile f = new RandomAccessFile(indexFile, "r")) {
+            long len = f.length();
+            if (len > Integer.MAX_VALUE) throw new IOException("归档索引过大：" + indexFile);
+            ByteBuffer buf = ByteBuffer.allocateDirect((int) len);
+            FileChannel ch = f.getChannel();
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) break;
+            }
+            if (len < HEADER_SIZE || buf.getInt(0) != MAGIC) throw new IOException("不是归档索引文件：" + indexFile);
+            int n = buf.getInt(4);
+            if (n < 0 || HEADER_SIZE + (long) n * ENTRY_SIZE > len) throw new IOException("归档索引已损坏：" + indexFile);
+            index = buf;
+            count = n;
+        }
+    }
+}
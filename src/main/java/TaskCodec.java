@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// 手写的 id|status|description 编解码，与 Task.encode/decode 的格式逐字节兼容：
+// 有时间戳的任务状态字段写成 status,created,updated,completed，没有时间戳的旧格式照常解码。
+// 解码不切分字符串、不用异常做控制流；编码直接写进可复用的字节缓冲。
+// 实例持有缓冲区，不是线程安全的，每个线程各用一个。
+class TaskCodec {
+    private static final Task.Status[] STATUSES = Task.Status.values();
+    private static final byte[][] STATUS_BYTES = new byte[STATUSES.length][];
+    static {
+        for (int i = 0; i < STATUSES.length; i++) {
+            STATUS_BYTES[i] = STATUSES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private byte[] out = new byte[8192];
+    private int outLen;
+    private byte[] scratch = new byte[256];
+    private final long[] times = new long[3];
+
+    // ---------- 解码：字符 ----------
+
+    // 解析 s[start, end)，坏行返回 null。时间戳解析进实例的 times，逐行加载时复用同一个 codec
+    Task decode(CharSequence s, int start, int end) {
+        return decode(s, start, end, times);
+    }
+
+    // 单行解码（Task.decode）用，不必为此创建带缓冲区的 codec
+    static Task decode(CharSequence s, int start, int end, long[] times) {
+        int p1 = indexOf(s, '|', start, end);
+        if (p1 < 0) return null;
+        int p2 = indexOf(s, '|', p1 + 1, end);
+        if (p2 < 0) return null;
+        long id = parseId(s, start, p1);
+        if (id == Long.MIN_VALUE) return null;
+        Task.Status st = decodeStatus(s, p1 + 1, p2, times);
+        if (st == null) return null;
+        // 描述是唯一需要新建的对象：String 直接截取，其他 CharSequence 才经 subSequence
+        String desc = s instanceof String ? ((String) s).substring(p2 + 1, end) : s.subSequence(p2 + 1, end).toString();
+        return new Task((int) id, desc, st, times[0], times[1], times[2]);
+    }
+
+    // 解析状态字段 s[from, to)：status 或 status,created,updated,completed。
+    // 时间戳写入 times（没有时为 0），坏字段返回 null
+    private static Task.Status decodeStatus(CharSequence s, int from, int to, long[] times) {
+        Arrays.fill(times, 0);
+        int c = indexOf(s, ',', from, to);
+        if (c < 0) return parseStatus(s, from, to);
+        Task.Status st = parseStatus(s, from, c);
+        if (st == null) return null;
+        for (int k = 0; k < times.length; k++) {
+            int next = k < times.length - 1 ? indexOf(s, ',', c + 1, to) : to;
+            if (next < 0) return null;
+            long v = parseTime(s, c + 1, next);
+            if (v == Long.MIN_VALUE) return null;
+            times[k] = v;
+            c = next;
+        }
+        return st;
+    }
+
+    private static int indexOf(CharSequence s, char c, int from, int end) {
+        for (int i = from; i < end; i++) if (s.charAt(i) == c) return i;
+        return -1;
+    }
+
+    // 与 Integer.parseInt(x.trim()) 等价；失败返回 Long.MIN_VALUE
+    private static long parseId(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        if (from == to) return Long.MIN_VALUE;
+        boolean neg = false;
+        char first = s.charAt(from);
+        if (first == '-' || first == '+') {
+            neg = first == '-';
+            if (++from == to) return Long.MIN_VALUE;
+        }
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = Character.digit(s.charAt(i), 10);
+            if (d < 0) return Long.MIN_VALUE;
+            v = v * 10 + d;
+            if (v > (long) Integer.MAX_VALUE + 1) return Long.MIN_VALUE;
+        }
+        if (neg) v = -v;
+        return v > Integer.MAX_VALUE ? Long.MIN_VALUE : v;
+    }
+
+    // 十进制毫秒数（可带负号）；失败返回 Long.MIN_VALUE
+    private static long parseTime(CharSequence s, int from, int to) {
+        boolean neg = from < to && s.charAt(from) == '-';
+        if (neg) from++;
+        if (from == to || to - from > 18) return Long.MIN_VALUE;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    private static Task.Status parseStatus(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        outer:
+        for (int k = 0; k < STATUS_BYTES.length; k++) {
+            byte[] name = STATUS_BYTES[k];
+            if (name.length != to - from) continue;
+            for (int i = 0; i < name.length; i++) {
+                if (s.charAt(from + i) != name[i]) continue outer;
+            }
+            return STATUSES[k];
+        }
+        return null;
+    }
+
+    // ---------- 解码：字节（UTF-8） ----------
+
+    // 解析 buf[start, end)（绝对下标，不改变 position），坏行返回 null
+    Task decode(ByteBuffer buf, int start, int end) {
+        int p1 = indexOf(buf, (byte) '|', start, end);
+        if (p1 < 0) return null;
+        int p2 = indexOf(buf, (byte) '|', p1 + 1, end);
+        if (p2 < 0) return null;
+        long id = parseId(buf, start, p1);
+        if (id == Long.MIN_VALUE) return null;
+        Task.Status st = decodeStatus(buf, p1 + 1, p2, times);
+        if (st == null) return null;
+        int len = end - p2 - 1;
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        for (int i = 0; i < len; i++) scratch[i] = buf.get(p2 + 1 + i);
+        return new Task((int) id, new String(scratch, 0, len, StandardCharsets.UTF_8), st, times[0], times[1], times[2]);
+    }
+
+    // 只解析 buf[start, end) 的 id、状态和时间戳，不构造描述字符串（供延迟加载使用）；坏行返回 false。
+    // 成功时 header[0] = id，header[1] = 状态序号，header[2] = 描述的起始下标，时间戳写入 times
+    static boolean decodeHeader(ByteBuffer buf, int start, int end, int[] header, long[] times) {
+        int p1 = indexOf(buf, (byte) '|', start, end);
+        if (p1 < 0) return false;
+        int p2 = indexOf(buf, (byte) '|', p1 + 1, end);
+        if (p2 < 0) return false;
+        long id = parseId(buf, start, p1);
+        if (id == Long.MIN_VALUE) return false;
+        Task.Status st = decodeStatus(buf, p1 + 1, p2, times);
+        if (st == null) return false;
+        header[0] = (int) id;
+        header[1] = st.ordinal();
+        header[2] = p2 + 1;
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer buf, byte b, int from, int end) {
+        for (int i = from; i < end; i++) if (buf.get(i) == b) return i;
+        return -1;
+    }
+
+    // 字段前两段只可能是 ASCII，非 ASCII 字节一律视为坏行
+    private static long parseId(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+        if (from == to) return Long.MIN_VALUE;
+        boolean neg = false;
+        byte first = buf.get(from);
+        if (first == '-' || first == '+') {
+            neg = first == '-';
+            if (++from == to) return Long.MIN_VALUE;
+        }
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            v = v * 10 + d;
+            if (v > (long) Integer.MAX_VALUE + 1) return Long.MIN_VALUE;
+        }
+        if (neg) v = -v;
+        return v > Integer.MAX_VALUE ? Long.MIN_VALUE : v;
+    }
+
+    // 同 decodeStatus(CharSequence, ...)
+    private static Task.Status decodeStatus(ByteBuffer buf, int from, int to, long[] times) {
+        Arrays.fill(times, 0);
+        int c = indexOf(buf, (byte) ',', from, to);
+        if (c < 0) return parseStatus(buf, from, to);
+        Task.Status st = parseStatus(buf, from, c);
+        if (st == null) return null;
+        for (int k = 0; k < times.length; k++) {
+            int next = k < times.length - 1 ? indexOf(buf, (byte) ',', c + 1, to) : to;
+            if (next < 0) return null;
+            long v = parseTime(buf, c + 1, next);
+            if (v == Long.MIN_VALUE) return null;
+            times[k] = v;
+            c = next;
+        }
+        return st;
+    }
+
+    private static long parseTime(ByteBuffer buf, int from, int to) {
+        boolean neg = from < to && buf.get(from) == '-';
+        if (neg) from++;
+        if (from == to || to - from > 18) return Long.MIN_VALUE;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    private static Task.Status parseStatus(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+        outer:
+        for (int k = 0; k < STATUS_BYTES.length; k++) {
+            byte[] name = STATUS_BYTES[k];
+            if (name.length != to - from) continue;
+            for (int i = 0; i < name.length; i++) {
+                if (buf.get(from + i) != name[i]) continue outer;
+            }
+            return STATUSES[k];
+        }
+        return null;
+    }
+
+    // ---------- 编码 ----------
+
+    // 一行的 id 和状态字段（含时间戳）最多占用的字节数
+    private static final int MAX_HEADER = 11 + 1 + 4 + 3 * 21 + 1;
+
+    // 把一行 "id|STATUS|description\n" 追加到内部缓冲
+    void encode(Task t) {
+        String desc = String.valueOf(t.getDescription());
+        ensure(MAX_HEADER + desc.length() * 3 + 1);
+        writeHeader(t.getId(), t.getStatus(), t.getCreatedAt(), t.getUpdatedAt(), t.getCompletedAt());
+        outLen = writeUtf8(desc, out, outLen);
+        out[outLen++] = '\n';
+    }
+
+    // 同上，描述是 src[pos, pos + len) 处现成的 UTF-8 字节（len < 0 表示 null），直接拷贝不经过 String
+    void encode(int id, Task.Status status, long createdAt, long updatedAt, long completedAt,
+                ByteBuffer src, int pos, int len) {
+        ensure(MAX_HEADER + Math.max(len, 4) + 1);
+        writeHeader(id, status, createdAt, updatedAt, completedAt);
+        if (len < 0) {
+            out[outLen++] = 'n';
+            out[outLen++] = 'u';
+            out[outLen++] = 'l';
+            out[outLen++] = 'l';
+        } else {
+            src.get(pos, out, outLen, len);
+            outLen += len;
+        }
+        out[outLen++] = '\n';
+    }
+
+    private void writeHeader(int id, Task.Status status, long createdAt, long updatedAt, long completedAt) {
+        writeInt(id);
+        out[outLen++] = '|';
+        byte[] st = STATUS_BYTES[status.ordinal()];
+        System.arraycopy(st, 0, out, outLen, st.length);
+        outLen += st.length;
+        if (createdAt != 0 || updatedAt != 0 || completedAt != 0) {
+            out[outLen++] = ',';
+            writeLong(createdAt);
+            out[outLen++] = ',';
+            writeLong(updatedAt);
+            out[outLen++] = ',';
+            writeLong(completedAt);
+        }
+        out[outLen++] = '|';
+    }
+
+    int size() { return outLen; }
+
+    void reset() { outLen = 0; }
+
+    byte[] buffer() { return out; }
+
+    void writeTo(OutputStream os) throws IOException {
+        os.write(out, 0, outLen);
+        outLen = 0;
+    }
+
+    private void ensure(int extra) {
+        if (outLen + extra > out.length) out = Arrays.copyOf(out, Math.max(outLen + extra, out.length * 2));
+    }
+
+    private void writeInt(int v) {
+        if (v == Integer.MIN_VALUE) {
+            byte[] b = "-2147483648".getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(b, 0, out, outLen, b.length);
+            outLen += b.length;
+            return;
+        }
+        if (v < 0) {
+            out[outLen++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (int x = v; x >= 10; x /= 10) digits++;
+        int p = outLen + digits;
+        outLen = p;
+        do {
+            out[--p] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+    }
+
+    // 时间戳；负数（时钟异常）极少见，直接走 Long.toString
+    private void writeLong(long v) {
+        if (v < 0) {
+            byte[] b = Long.toString(v).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(b, 0, out, outLen, b.length);
+            outLen += b.length;
+            return;
+        }
+        int digits = 1;
+        for (long x = v; x >= 10; x /= 10) digits++;
+        int p = outLen + digits;
+        outLen = p;
+        do {
+            out[--p] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+    }
+
+    // 与 String.getBytes(UTF_8) 一致：不成对的代理字符写成 '?'。
+    // 调用方保证 dst 从 pos 起至少有 s.length() * 3 字节空间；返回写完后的位置
+    static int writeUtf8(String s, byte[] dst, int pos) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dst[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[pos++] = (byte) (0xC0 | (c >> 6));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                dst[pos++] = (byte) (0xF0 | (cp >> 18));
+                dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                dst[pos++] = '?';
+            } else {
+                dst[pos++] = (byte) (0xE0 | (c >> 12));
+                dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// 离线转换工具：文本格式 <-> 二进制格式 / 槽位格式，以及 id 重新编号
+//   java TaskFileConverter to-binary  tasks.txt tasks.tdb
+//   java TaskFileConverter to-slotted tasks.txt tasks.tds
+//   java TaskFileConverter to-text    tasks.tdb tasks.txt
+//   java TaskFileConverter renumber   tasks.txt tasks-new.txt ids.tsv   （id 按顺序编为 1..n，格式不变）
+public class TaskFileConverter {
+
+    public static void main(String[] args) {
+        if (args.length == 4 && args[0].equals("renumber")) {
+            try {
+                int n = renumber(new File(args[1]), new File(args[2]), new File(args[3]));
+                System.out.println("已重新编号 " + n + " 条任务，映射写入 " + args[3] + "。");
+            } catch (IOException e) {
+                System.out.println("重新编号失败：" + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        TaskStore.Format target = args.length == 3 ? targetFormat(args[0]) : null;
+        if (target == null) {
+            System.out.println("用法：TaskFileConverter to-binary|to-slotted|to-text <输入文件> <输出文件>");
+            System.out.println("      TaskFileConverter renumber <输入文件> <输出文件> <映射文件>");
+            System.exit(2);
+        }
+        try {
+            int n = convert(new File(args[1]), new File(args[2]), target);
+            System.out.println("已转换 " + n + " 条任务。");
+        } catch (IOException e) {
+            System.out.println("转换失败：" + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static TaskStore.Format targetFormat(String command) {
+        switch (command) {
+            case "to-binary": return TaskStore.Format.BINARY;
+            case "to-slotted": return TaskStore.Format.SLOTTED;
+            case "to-text": return TaskStore.Format.TEXT;
+            default: return null;
+        }
+    }
+
+    // 输入格式按文件头自动识别；返回写出的任务数
+    static int convert(File in, File out, TaskStore.Format target) throws IOException {
+        if (!in.isFile()) throw new FileNotFoundException(in.getPath());
+        TaskStore src = new TaskStore(in.getPath());
+        src.load();
+        List<Task> tasks = src.listAll();
+        TaskStore.writeFile(out, target, tasks);
+        return tasks.size();
+    }
+
+    // 把 id 按文件中的顺序重新编为 1..n 写入 out（格式与输入相同），映射写入 mapping；返回任务数
+    static int renumber(File in, File out, File mapping) throws IOException {
+        if (!in.isFile()) throw new FileNotFoundException(in.getPath());
+        TaskStore src = new TaskStore(in.getPath());
+        src.load();
+        List<Task> tasks = src.listAll();
+        List<Task> renumbered = new ArrayList<>(tasks.size());
+        int[] oldIds = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            oldIds[i] = tasks.get(i).getId();
+            renumbered.add(tasks.get(i).withId(i + 1));
+        }
+        TaskStore.Format format = SlottedTaskFile.isSlotted(in) ? TaskStore.Format.SLOTTED
+                : BinaryTaskFormat.isBinary(in) ? TaskStore.Format.BINARY : TaskStore.Format.TEXT;
+        TaskStore.writeFile(out, format, renumbered);
+        writeMapping(mapping, oldIds, renumbered);
+        return tasks.size();
+    }
+
+    // 写出 TaskStore.renumber() 返回的映射，每行 "旧id<TAB>新id"；renumbered 为重新编号后按顺序的任务
+    static void writeMapping(File file, int[] oldIds, List<Task> renumbered) throws IOException {
+        SnapshotFile.write(file, os -> {
+            Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+            for (int i = 0; i < oldIds.length; i++) w.write(oldIds[i] + "\t" + renumbered.get(i).getId() + "\n");
+            w.flush();
+        });
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// 追加写的变更日志（WAL），与快照文件配合使用：
+//   A|id|status|description   新增（与快照文件中的行相同，status 可带时间戳）
+//   S|id,updated|status       状态变更（完成时间由状态推出：DONE 时等于 updated，否则为 0）
+//   D|id                      删除
+//   U|id,updated|description  修改描述
+//   B|n ... E|n               批量操作：n 条记录作为一个整体，缺少 E 行的批次回放时整体丢弃
+// 没有 ,updated 的旧记录照常回放，时间戳保持不变。
+// 每条记录一行；回放是幂等的，快照写完但日志尚未截断时崩溃也能正确恢复
+class TaskJournal implements Closeable {
+    private final File file;
+    private final int syncEvery; // 每写多少条 fsync 一次；<= 0 表示只交给操作系统缓存
+    private FileOutputStream out;
+    private int unsynced;
+    private long bytes;
+    private GroupCommitter group; // 组提交模式下由它成批写入并 fsync
+
+    TaskJournal(File file, int syncEvery) throws IOException {
+        this.file = file;
+        this.syncEvery = syncEvery;
+        this.out = new FileOutputStream(file, true);
+        this.bytes = file.length();
+    }
+
+    File getFile() { return file; }
+
+    // 改为组提交：记录由后台线程成批写入，每批一次 fsync（见 GroupCommitter），syncEvery 不再起作用
+    void enableGroupCommit(int maxBatch, long maxWaitNanos) {
+        if (group == null) group = new GroupCommitter(out, maxBatch, maxWaitNanos);
+    }
+
+    GroupCommitter groupCommitter() { return group; }
+
+    // 此前写入的记录全部落盘后完成。非组提交模式下当场 fsync
+    CompletableFuture<Void> commit() {
+        if (group != null) return group.whenDurable(group.appended());
+        try {
+            sync();
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    long size() { return bytes; }
+
+    static String addRecord(Task t) { return "A|" + t.encode(); }
+
+    static String statusRecord(Task t) { return "S|" + t.getId() + "," + t.getUpdatedAt() + "|" + t.getStatus(); }
+
+    static String deleteRecord(int id) { return "D|" + id; }
+
+    static String descriptionRecord(Task t) {
+        return "U|" + t.getId() + "," + t.getUpdatedAt() + "|" + t.getDescription();
+    }
+
+    void logAdd(Task t) throws IOException { write(addRecord(t) + "\n", 1); }
+
+    void logStatus(Task t) throws IOException { write(statusRecord(t) + "\n", 1); }
+
+    void logDelete(int id) throws IOException { write(deleteRecord(id) + "\n", 1); }
+
+    void logDescription(Task t) throws IOException { write(descriptionRecord(t) + "\n", 1); }
+
+    // 批量记录一次写入、最多一次 fsync
+    void logBatch(List<String> records) throws IOException {
+        if (records.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        sb.append("B|").append(records.size()).append('\n');
+        for (String r : records) sb.append(r).append('\n');
+        sb.append("E|").append(records.size()).append('\n');
+        write(sb.toString(), syncEvery > 0 ? syncEvery : 1);
+    }
+
+    private void write(String records, int count) throws IOException {
+        byte[] b = records.getBytes(StandardCharsets.UTF_8);
+        bytes += b.length;
+        if (group != null) {
+            group.append(b);
+            return;
+        }
+        out.write(b);
+        unsynced += count;
+        if (syncEvery > 0 && unsynced >= syncEvery) sync();
+    }
+
+    void sync() throws IOException {
+        if (group != null) {
+            try {
+                commit().join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause());
+            }
+            return;
+        }
+        out.getFD().sync();
+        unsynced = 0;
+    }
+
+    // 快照落盘后调用：日志里的内容都已包含在快照中（组提交模式下尚未写入的记录直接丢弃）
+    void truncate() throws IOException {
+        if (group != null) {
+            group.discard(this::truncateFile);
+        } else {
+            truncateFile();
+        }
+        bytes = 0;
+        unsynced = 0;
+    }
+
+    private void truncateFile() throws IOException {
+        out.getChannel().truncate(0);
+        out.getFD().sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (group != null) group.close(); // 写完剩余记录
+            else sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    // 把日志回放到 store 上（坏行/写了一半的尾行跳过）；返回跳过的行数
+    static int replay(File file, TaskStore store) throws IOException {
+        if (!file.exists()) return 0;
+        int skipped = 0;
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            List<String> batch = null;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("B|")) {
+                    if (batch != null) skipped += batch.size();
+                    batch = new ArrayList<>(); // 前一个未结束的批次（不应出现）直接丢弃
+                } else if (line.startsWith("E|")) {
+                    if (batch != null) for (String r : batch) if (!apply(r, store)) skipped++;
+                    batch = null;
+                } else if (batch != null) {
+                    batch.add(line);
+                } else if (!line.isEmpty() && !apply(line, store)) {
+                    skipped++;
+                }
+            }
+            // 文件结束时仍未闭合的批次是崩溃时写了一半，整体丢弃
+            if (batch != null) skipped += batch.size();
+        }
+        return skipped;
+    }
+
+    // 坏行返回 false
+    private static boolean apply(String line, TaskStore store) {
+        if (line.length() < 2 || line.charAt(1) != '|') return false;
+        String body = line.substring(2);
+        switch (line.charAt(0)) {
+            case 'A': {
+                Task t = Task.decode(body);
+                if (t == null) return false;
+                store.replayAdd(t);
+                return true;
+            }
+            case 'S': {
+                int sep = body.indexOf('|');
+                if (sep < 0) return false;
+                int comma = body.lastIndexOf(',', sep);
+                try {
+                    int id = Integer.parseInt(body.substring(0, comma < 0 ? sep : comma).trim());
+                    long updatedAt = comma < 0 ? 0 : Long.parseLong(body.substring(comma + 1, sep).trim());
+                    store.replayStatus(id, Task.Status.valueOf(body.substring(sep + 1).trim()), updatedAt);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+            case 'U': {
+                int sep = body.indexOf('|');
+                if (sep < 0) return false;
+                int comma = body.lastIndexOf(',', sep);
+                try {
+                    int id = Integer.parseInt(body.substring(0, comma < 0 ? sep : comma).trim());
+                    long updatedAt = comma < 0 ? 0 : Long.parseLong(body.substring(comma + 1, sep).trim());
+                    store.replayDescription(id, body.substring(sep + 1), updatedAt);
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            case 'D': {
+                try {
+                    store.replayDelete(Integer.parseInt(body.trim()));
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+// TaskStore 的运行指标：各操作的延迟直方图、快照读写字节数、加载时跳过的坏行数。
+// 记录路径只有原子加，不分配对象；store 未开启指标时只多一次空判断
+class TaskMetrics implements TaskMetricsMBean {
+    enum Op { LOAD, SAVE, ADD, FIND_BY_ID, LIST_BY_STATUS, MARK_STATUS, DELETE, SEARCH }
+
+    private static final Op[] OPS = Op.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPS.length];
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong skippedLines = new AtomicLong();
+
+    TaskMetrics() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new LatencyHistogram();
+    }
+
+    // 记录一次从 startNanos（System.nanoTime()）到现在的耗时
+    void record(Op op, long startNanos) {
+        latencies[op.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    void addBytesRead(long n) { bytesRead.addAndGet(n); }
+
+    void addBytesWritten(long n) { bytesWritten.addAndGet(n); }
+
+    void addSkippedLines(long n) {
+        if (n > 0) skippedLines.addAndGet(n);
+    }
+
+    LatencyHistogram latency(Op op) { return latencies[op.ordinal()]; }
+
+    // 注册到平台 MBeanServer，名字已存在时先注销旧的
+    ObjectName registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName on = new ObjectName("TodoApp:type=TaskStore,name=" + ObjectName.quote(name));
+        if (server.isRegistered(on)) server.unregisterMBean(on);
+        server.registerMBean(new StandardMBean(this, TaskMetricsMBean.class), on);
+        return on;
+    }
+
+    // 供 TodoApp 的指标命令输出
+    String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-15s %10s %10s %10s %10s %10s %10s%n",
+                "操作", "次数", "平均(us)", "p50", "p99", "p99.9", "最大"));
+        for (String line : getLatencySummary()) sb.append(line).append('\n');
+        sb.append("读取字节：").append(bytesRead.get())
+          .append("  写入字节：").append(bytesWritten.get())
+          .append("  跳过坏行：").append(skippedLines.get()).append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    public long getBytesRead() { return bytesRead.get(); }
+
+    @Override
+    public long getBytesWritten() { return bytesWritten.get(); }
+
+    @Override
+    public long getSkippedLines() { return skippedLines.get(); }
+
+    @Override
+    public String[] getLatencySummary() {
+        String[] out = new String[OPS.length];
+        for (Op op : OPS) {
+            LatencyHistogram h = latency(op);
+            out[op.ordinal()] = String.format(Locale.ROOT, "%-15s %10d %10.1f %10.1f %10.1f %10.1f %10.1f",
+                    op, h.count(), h.mean() / 1000, h.percentile(50) / 1000.0, h.percentile(99) / 1000.0,
+                    h.percentile(99.9) / 1000.0, h.max() / 1000.0);
+        }
+        return out;
+    }
+
+    @Override
+    public long count(String op) { return latency(Op.valueOf(op)).count(); }
+
+    @Override
+    public double percentileMicros(String op, double percentile) {
+        return latency(Op.valueOf(op)).percentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : latencies) h.reset();
+        bytesRead.set(0);
+        bytesWritten.set(0);
+        skippedLines.set(0);
+    }
+}
@@ -0,0 +1,18 @@
+// TaskMetrics 的 JMX 管理接口（jconsole 中位于 TodoApp:type=TaskStore,name=...）。
+// 延迟以微秒为单位；op 取 TaskMetrics.Op 的名字，如 FIND_BY_ID
+public interface TaskMetricsMBean {
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getSkippedLines();
+
+    // 每个操作一行：次数、平均、p50 / p99 / p99.9、最大
+    String[] getLatencySummary();
+
+    long count(String op);
+
+    double percentileMicros(String op, double percentile);
+
+    void reset();
+}
@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// 任务描述的增量倒排索引。
+// 分词：连续的中日韩字符产生单字与相邻二字词（"写周报" -> 写 周 报 写周 周报），
+// 字母数字串按小写整体作为一个词。每个词的倒排表是按 id 升序的 int 数组。
+class TaskSearchIndex {
+    // TreeMap 便于前缀查询（subMap）
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+
+    void add(int id, String description) {
+        for (String term : tokenize(description)) {
+            terms.computeIfAbsent(term, k -> new Postings()).add(id);
+        }
+    }
+
+    void remove(int id, String description) {
+        for (String term : tokenize(description)) {
+            Postings p = terms.get(term);
+            if (p == null) continue;
+            p.remove(id);
+            if (p.size == 0) terms.remove(term);
+        }
+    }
+
+    int termCount() { return terms.size(); }
+
+    // 查询中的每个词都必须出现；中文按二字词匹配（单字查询按单字）。返回升序 id
+    int[] search(String query) {
+        List<String> tokens = queryTokens(query);
+        if (tokens.isEmpty()) return new int[0];
+        Postings[] lists = new Postings[tokens.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = terms.get(tokens.get(i));
+            if (lists[i] == null) return new int[0];
+        }
+        // 从最短的倒排表开始求交集
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] acc = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int n = acc.length;
+        for (int i = 1; i < lists.length && n > 0; i++) n = intersect(acc, n, lists[i]);
+        return Arrays.copyOf(acc, n);
+    }
+
+    // 以 prefix 开头的任一词出现即命中（prefix 按小写处理）。返回升序 id
+    int[] searchPrefix(String prefix) {
+        String p = prefix.trim().toLowerCase(Locale.ROOT);
+        if (p.isEmpty()) return new int[0];
+        NavigableMap<String, Postings> range = terms.subMap(p, true, p + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            Postings only = range.values().iterator().next();
+            return Arrays.copyOf(only.ids, only.size);
+        }
+        int total = 0;
+        for (Postings ps : range.values()) total += ps.size;
+        int[] all = new int[total];
+        int k = 0;
+        for (Postings ps : range.values()) {
+            System.arraycopy(ps.ids, 0, all, k, ps.size);
+            k += ps.size;
+        }
+        Arrays.sort(all);
+        // 去重
+        int w = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (w == 0 || all[w - 1] != all[i]) all[w++] = all[i];
+        }
+        return Arrays.copyOf(all, w);
+    }
+
+    // acc[0, n) 与 p 求交集，结果写回 acc，返回新长度
+    private static int intersect(int[] acc, int n, Postings p) {
+        int w = 0;
+        int j = 0;
+        for (int i = 0; i < n && j < p.size; i++) {
+            int id = acc[i];
+            // 倒排表较长时用二分跳跃
+            if (p.ids[j] < id) {
+                int pos = Arrays.binarySearch(p.ids, j, p.size, id);
+                j = pos >= 0 ? pos : -pos - 1;
+            }
+            if (j < p.size && p.ids[j] == id) acc[w++] = id;
+        }
+        return w;
+    }
+
+    private static List<String> queryTokens(String query) {
+        List<String> out = new ArrayList<>();
+        if (query == null) return out;
+        int n = query.length();
+        int i = 0;
+        while (i < n) {
+            int cp = query.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < n && isCjk(query.codePointAt(i))) i += Character.charCount(query.codePointAt(i));
+                String run = query.substring(start, i);
+                if (run.codePointCount(0, run.length()) == 1) {
+                    out.add(run);
+                } else {
+                    addBigrams(run, out);
+                }
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < n && isWordChar(query.codePointAt(i))) i += Character.charCount(query.codePointAt(i));
+                out.add(query.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return out;
+    }
+
+    // 文档分词：去重后的词集合
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < n && isCjk(text.codePointAt(i))) i += Character.charCount(text.codePointAt(i));
+                String run = text.substring(start, i);
+                for (int k = 0; k < run.length(); k += Character.charCount(run.codePointAt(k))) {
+                    out.add(run.substring(k, k + Character.charCount(run.codePointAt(k))));
+                }
+                addBigrams(run, out);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < n && isWordChar(text.codePointAt(i))) i += Character.charCount(text.codePointAt(i));
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        if (out.size() > 1) {
+            String[] uniq = out.toArray(new String[0]);
+            Arrays.sort(uniq);
+            out.clear();
+            for (int k = 0; k < uniq.length; k++) {
+                if (k == 0 || !uniq[k].equals(uniq[k - 1])) out.add(uniq[k]);
+            }
+        }
+        return out;
+    }
+
+    private static void addBigrams(String run, List<String> out) {
+        int prev = -1;
+        for (int k = 0; k < run.length(); ) {
+            int len = Character.charCount(run.codePointAt(k));
+            if (prev >= 0) out.add(run.substring(prev, k + len));
+            prev = k;
+            k += len;
+        }
+    }
+
+    private static boolean isWordChar(int cp) {
+        return Character.isLetterOrDigit(cp) && !isCjk(cp);
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript sc = Character.UnicodeScript.of(cp);
+        return sc == Character.UnicodeScript.HAN
+                || sc == Character.UnicodeScript.HIRAGANA
+                || sc == Character.UnicodeScript.KATAKANA
+                || sc == Character.UnicodeScript.HANGUL;
+    }
+
+    // 升序 id 数组；新 id 通常最大，追加为 O(1)
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
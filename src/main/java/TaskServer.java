@@ -0,0 +1,334 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 本机 HTTP/JSON 前端，多个客户端共享同一个进程内的 ConcurrentTaskStore。
+// 在 JDK 21+ 上每个请求一个虚拟线程，更早的 JDK 退回到缓存线程池。
+//
+//   GET    /tasks?status=TODO&after=<id>&limit=<n>   列出（按 id 游标分页，默认 limit 100）
+//   POST   /tasks                                    添加，请求体为描述文本或 {"description": "..."}（不能含换行）
+//   GET    /tasks/<id>                               查询单个任务
+//   PUT    /tasks/<id>/status                        标记状态，请求体为 TODO 或 DONE
+//   DELETE /tasks/<id>                               删除
+//
+//   java TaskServer [端口] [数据文件]
+public class TaskServer {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+    private static final int MAX_BODY = 64 << 10;
+    private static final long ASYNC_SAVE_INTERVAL_MS = 2000;
+    private static final int ASYNC_SAVE_MAX_PENDING = 1000;
+
+    static {
+        // 内置 HttpServer 分两次写响应头和响应体，Nagle 与延迟确认叠加后每个请求多等约 40ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConcurrentTaskStore store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public TaskServer(ConcurrentTaskStore store, int port) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        ConcurrentTaskStore store = new ConcurrentTaskStore(args.length > 1 ? args[1] : "tasks.txt");
+        store.load();
+        // 变更由后台线程定期写入快照，不必等到退出
+        store.enableAsyncSave(ASYNC_SAVE_INTERVAL_MS, ASYNC_SAVE_MAX_PENDING);
+        TaskServer server = new TaskServer(store, port);
+        // 进程退出时停止接收请求并写完未保存的变更
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "task-server-shutdown"));
+        server.start();
+        System.out.println("已在 http://127.0.0.1:" + server.port() + "/tasks 上提供服务");
+    }
+
+    // JDK 21+：每个请求一个虚拟线程；否则使用缓存线程池
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() { server.start(); }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    // 停止服务（等待进行中的请求最多 1 秒）并保存数据（开启了后台保存时写完未保存的变更后停止它）
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        store.close();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            route(ex);
+        } catch (BodyTooLargeException e) {
+            send(ex, 413, error("请求体过大"));
+        } catch (RuntimeException e) {
+            send(ex, 500, error("服务器内部错误"));
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void route(HttpExchange ex) throws IOException {
+        String method = ex.getRequestMethod();
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        // parts: ["", "tasks", <id>?, "status"?]；上下文按前缀匹配，/tasksXYZ 也会进来
+        if (parts.length < 2 || !parts[1].equals("tasks")) {
+            send(ex, 404, error("未知路径"));
+            return;
+        }
+        if (parts.length == 2) {
+            if (method.equals("GET")) list(ex);
+            else if (method.equals("POST")) add(ex);
+            else send(ex, 405, error("不支持的方法"));
+            return;
+        }
+        Integer id = parseInt(parts[2]);
+        if (id == null) {
+            send(ex, 400, error("ID 必须是整数"));
+            return;
+        }
+        if (parts.length == 3) {
+            if (method.equals("GET")) {
+                Task t = store.findById(id);
+                if (t == null) send(ex, 404, error("未找到该ID"));
+                else send(ex, 200, toJson(t));
+            } else if (method.equals("DELETE")) {
+                if (store.delete(id)) send(ex, 204, null);
+                else send(ex, 404, error("未找到该ID"));
+            } else {
+                send(ex, 405, error("不支持的方法"));
+            }
+            return;
+        }
+        if (parts.length == 4 && parts[3].equals("status") && (method.equals("PUT") || method.equals("POST"))) {
+            Task.Status st = parseStatus(readBody(ex));
+            if (st == null) send(ex, 400, error("状态必须是 TODO 或 DONE"));
+            else if (store.markStatus(id, st)) send(ex, 200, toJson(store.findById(id)));
+            else send(ex, 404, error("未找到该ID"));
+            return;
+        }
+        send(ex, 404, error("未知路径"));
+    }
+
+    private void list(HttpExchange ex) throws IOException {
+        Task.Status status = null;
+        int after = TaskStore.FROM_START;
+        int limit = DEFAULT_LIMIT;
+        String query = ex.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String kv : query.split("&")) {
+                int eq = kv.indexOf('=');
+                if (eq < 0) continue;
+                String key = kv.substring(0, eq);
+                String value = kv.substring(eq + 1);
+                if (key.equals("status")) {
+                    status = parseStatus(value);
+                    if (status == null) {
+                        send(ex, 400, error("状态必须是 TODO 或 DONE"));
+                        return;
+                    }
+                } else if (key.equals("after") || key.equals("limit")) {
+                    Integer v = parseInt(value);
+                    if (v == null) {
+                        send(ex, 400, error(key + " 必须是整数"));
+                        return;
+                    }
+                    if (key.equals("after")) after = v;
+                    else limit = Math.max(1, Math.min(MAX_LIMIT, v));
+                }
+            }
+        }
+        List<Task> page = status == null ? store.listAfter(after, limit) : store.listAfter(status, after, limit);
+        StringBuilder sb = new StringBuilder(page.size() * 48 + 2).append('[');
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendJson(sb, page.get(i));
+        }
+        send(ex, 200, sb.append(']').toString());
+    }
+
+    private void add(HttpExchange ex) throws IOException {
+        String body = readBody(ex);
+        String desc = body.trim().startsWith("{") ? jsonField(body, "description") : body.trim();
+        if (desc == null || desc.isEmpty()) {
+            send(ex, 400, error("描述不能为空"));
+            return;
+        }
+        // 文本数据文件一行一个任务，描述中的换行会把任务截断
+        if (desc.indexOf('\n') >= 0 || desc.indexOf('\r') >= 0) {
+            send(ex, 400, error("描述不能包含换行"));
+            return;
+        }
+        Task t = store.add(desc);
+        ex.getResponseHeaders().set("Location", "/tasks/" + t.getId());
+        send(ex, 201, toJson(t));
+    }
+
+    // ---------- 工具 ----------
+
+    private static Integer parseInt(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Task.Status parseStatus(String s) {
+        String v = s.trim().replace("\"", "").toUpperCase(Locale.ROOT);
+        for (Task.Status st : Task.Status.values()) {
+            if (st.name().equals(v)) return st;
+        }
+        return null;
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                bos.write(buf, 0, n);
+                if (bos.size() > MAX_BODY) throw new BodyTooLargeException();
+            }
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange ex, int code, String json) throws IOException {
+        if (json == null) {
+            ex.sendResponseHeaders(code, -1);
+            return;
+        }
+        byte[] b = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(code, b.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(b);
+        }
+    }
+
+    static String toJson(Task t) {
+        StringBuilder sb = new StringBuilder(64);
+        appendJson(sb, t);
+        return sb.toString();
+    }
+
+    private static void appendJson(StringBuilder sb, Task t) {
+        sb.append("{\"id\":").append(t.getId()).append(",\"status\":\"").append(t.getStatus().name())
+                .append("\",\"createdAt\":").append(t.getCreatedAt())
+                .append(",\"updatedAt\":").append(t.getUpdatedAt())
+                .append(",\"completedAt\":").append(t.getCompletedAt())
+                .append(",\"description\":");
+        appendString(sb, t.getDescription());
+        sb.append('}');
+    }
+
+    private static String error(String msg) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        appendString(sb, msg);
+        return sb.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // 从形如 {"key": "value", ...} 的 JSON 中取出字符串字段；找不到或格式不对返回 null
+    static String jsonField(String json, String key) {
+        String quoted = "\"" + key + "\"";
+        int k = json.indexOf(quoted);
+        if (k < 0) return null;
+        int i = json.indexOf(':', k + quoted.length());
+        if (i < 0) return null;
+        i++;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        if (i >= json.length() || json.charAt(i) != '"') return null;
+        StringBuilder sb = new StringBuilder();
+        for (i++; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i >= json.length()) return null;
+            char e = json.charAt(i);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= json.length()) return null;
+                    Integer cp = parseHex(json.substring(i + 1, i + 5));
+                    if (cp == null) return null;
+                    sb.append((char) (int) cp);
+                    i += 4;
+                    break;
+                default: sb.append(e); // \" \\ \/
+            }
+        }
+        return null;
+    }
+
+    // 请求体超过 MAX_BODY，由 handle() 转成 413
+    private static final class BodyTooLargeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() { super("请求体过大", null, false, false); }
+    }
+
+    private static Integer parseHex(String s) {
+        try {
+            return Integer.parseInt(s, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// TaskStore 在某一时刻的只读视图（TaskStore.snapshot()）：之后 store 上的增删改都看不到，
+// 其中的任务与 store 共享同一批对象（store 修改前先复制），是只读的，调用 setStatus / setDescription
+// 会抛出 UnsupportedOperationException。可以在任意线程中使用，不需要加锁
+public final class TaskSnapshot implements Iterable<Task> {
+    private final TaskVersions.Node root;
+    private final int shift;
+    private final int count;  // 槽位数（含空槽）
+    private final int size;
+    private final int[] statusCounts;
+    private final long version;
+
+    TaskSnapshot(TaskVersions.Node root, int shift, int count, int size, int[] statusCounts, long version) {
+        this.root = root;
+        this.shift = shift;
+        this.count = count;
+        this.size = size;
+        this.statusCounts = statusCounts;
+        this.version = version;
+    }
+
+    // store 的变更版本号：每次变更加一，版本相同的两个快照内容相同
+    public long version() { return version; }
+
+    public int size() { return size; }
+
+    public int countByStatus(Task.Status status) { return statusCounts[status.ordinal()]; }
+
+    // 按插入顺序
+    public List<Task> listAll() {
+        List<Task> out = new ArrayList<>(size);
+        TaskVersions.forEach(root, shift, count, out::add);
+        return out;
+    }
+
+    public List<Task> listByStatus(Task.Status status) {
+        List<Task> out = new ArrayList<>(countByStatus(status));
+        TaskVersions.forEach(root, shift, count, t -> {
+            if (t.getStatus() == status) out.add(t);
+        });
+        return out;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < count && get(from) == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Task next() {
+                if (next >= count) throw new NoSuchElementException();
+                Task t = get(next);
+                next = advance(next + 1);
+                return t;
+            }
+        };
+    }
+
+    // 第 i 个槽位，空槽为 null
+    private Task get(int i) {
+        TaskVersions.Node n = root;
+        for (int level = shift; level > 0; level -= TaskVersions.BITS) {
+            n = (TaskVersions.Node) n.items[(i >>> level) & TaskVersions.MASK];
+            if (n == null) return null;
+        }
+        return (Task) n.items[i & TaskVersions.MASK];
+    }
+}
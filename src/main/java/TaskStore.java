@@ -1,81 +1,1158 @@
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
-public class TaskStore {
-    private final List<Task> tasks = new ArrayList<>();
+public class TaskStore implements Iterable<Task> {
+    // 游标分页的起点：listAfter(FROM_START, n) 返回前 n 个任务
+    public static final int FROM_START = Integer.MIN_VALUE;
+    private static final Task.Time[] TIMES = Task.Time.values();
+
+    // 快照文件格式：TEXT 为每行 id|status|description；BINARY 见 BinaryTaskFormat；
+    // SLOTTED 为定长槽位 + 描述文件，save() 只写有变更的任务，见 SlottedTaskFile
+    public enum Format { TEXT, BINARY, SLOTTED }
+
+    // 按插入顺序存放任务；删除只置空槽位，空槽过多时再整体压缩
+    private Task[] slots = new Task[16];
+    private int slotCount;  // 已使用的槽位数（含空槽）
+    private int liveCount;  // 实际任务数
+    private int modCount;   // 结构性修改次数，供迭代器检测并发修改
+    // 槽位中的 id 是否随插入顺序严格递增；开启 id 复用、重新分片或文件中 id 乱序时不再成立。
+    // 成立时游标定位可以在槽位上二分
+    private boolean idsAscending = true;
+    private int lastAppendedId = Integer.MIN_VALUE;
+    // 主键索引：id -> 槽位下标
+    private final IntIntMap index = new IntIntMap();
+    // 状态索引：每种状态一个槽位位图，外加计数
+    private final BitSet[] byStatus = new BitSet[Task.Status.values().length];
+    private final int[] statusCounts = new int[Task.Status.values().length];
     private int nextId = 1;
+    // 超过该大小的数据文件走并行加载
+    static final long PARALLEL_LOAD_THRESHOLD = 16L << 20;
+    private static final int SAVE_BUFFER_SIZE = 64 << 10;
     private final File dataFile;
+    private final Format format;
+    // 日志模式：每次变更追加到 <dataFile>.log，后台定期合并进快照
+    private TaskJournal journal;
+    private ScheduledExecutorService compactor;
+    // 只回放不记录：load() 时回放遗留的日志，保存成功后删除（见 enableJournalReplay）
+    private File replayOnly;
+    // 描述全文索引，第一次搜索时建立，之后随增删改增量维护
+    private TaskSearchIndex searchIndex;
+    // 异步保存模式：变更累加计数，由后台线程合并写入快照
+    private AsyncPersister persister;
+    private long changeVersion;          // 每次变更加一，用于判断快照新旧
+    private final Object saveLock = new Object(); // 串行化快照文件的写入
+    private long writtenVersion = -1;    // 已写入文件的快照版本，受 saveLock 保护
+    // SLOTTED 格式：上次保存后变更过的任务 id -> SlottedTaskFile.STATUS / DESCRIPTION 标记（增删为 ALL）
+    private final IntIntMap dirty = new IntIntMap();
+    private boolean trackDirty;
+    private SlottedTaskFile slotted;     // 内容等于 "内存减去 dirty" 的已打开文件；null 表示下次整体重写
+    // 运行指标，enableMetrics() 之前为 null，热点路径只多一次空判断
+    private TaskMetrics metrics;
+    // 延迟加载描述时 LRU 缓存的条数；< 0 表示加载时全部解码
+    private int lazyCacheSize = -1;
+    // 槽位数组的持久化副本（只存引用，与 slots 共享任务对象），第一次 snapshot() 时建立，之后随每次变更维护
+    private TaskVersions versions;
+    // 编辑令牌：store 中 edit 与它相同的任务没有被快照共享，可以原地修改；取快照时换新（见 editable）
+    private Object edit = new Object();
+    // enableIdReuse() 之后由它分配新 id，复用已删除任务的 id
+    private IdAllocator idAllocator;
+    // enableArchive() 之后 archiveDone 把已完成的任务移到这里，findById 在内存中找不到时再查它
+    private TaskArchive archive;
+    // 每种时间戳一个时间索引，第一次按该时间查询时建立，之后随增删改增量维护
+    private final TimeIndex[] timeIndexes = new TimeIndex[Task.Time.values().length];
+    private LongSupplier clock = System::currentTimeMillis;
 
     public TaskStore(String filePath) {
+        this(filePath, Format.TEXT);
+    }
+
+    // format 决定 save() 写出的格式；load() 按文件头自动识别，便于两种格式之间迁移
+    public TaskStore(String filePath, Format format) {
         this.dataFile = new File(filePath);
+        this.format = format;
+        this.trackDirty = format == Format.SLOTTED;
+        for (int i = 0; i < byStatus.length; i++) byStatus[i] = new BitSet();
+    }
+
+    // 开启日志模式，须在 load() 之前调用。
+    // syncEvery：每写多少条日志 fsync 一次（<= 0 不主动 fsync）；
+    // compactBytes：日志超过该大小时由后台线程合并进快照（<= 0 不自动合并）
+    public synchronized void enableJournal(int syncEvery, long compactBytes) throws IOException {
+        if (journal != null) return;
+        if (persister != null) throw new IllegalStateException("已开启异步保存，不能再开启日志");
+        if (replayOnly != null) throw new IllegalStateException("已开启只回放日志，不能再开启日志");
+        journal = new TaskJournal(new File(dataFile.getPath() + ".log"), syncEvery);
+        if (compactBytes > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread th = new Thread(r, "task-journal-compactor");
+                th.setDaemon(true);
+                return th;
+            });
+            compactor.scheduleWithFixedDelay(() -> compactIfLarger(compactBytes), 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    // 只在结束时整体保存一次的场景（批处理）：不记日志，省去每次变更一次的写入；
+    // 但 load() 时仍回放上次遗留的日志（交互模式崩溃前尚未合并的变更），保存成功后删除它。
+    // 须在 load() 之前调用，与 enableJournal 互斥
+    public synchronized void enableJournalReplay() {
+        if (journal != null) throw new IllegalStateException("已开启日志，不能再只回放日志");
+        replayOnly = new File(dataFile.getPath() + ".log");
+    }
+
+    // 以组提交方式开启日志模式，须在 load() 之前调用：变更只追加进内存缓冲，由后台线程成批写入日志，
+    // 每批一次 fsync，多个线程的变更共享同一次 fsync。每批最多攒 maxBatch 条变更或等待 maxWaitMicros 微秒，
+    // 值越大吞吐越高、单次变更等待落盘的延迟也越长；maxWaitMicros 为 0 时只合并上一次 fsync 期间到达的变更。
+    // 需要确认落盘时调用 commit()。compactBytes 同 enableJournal
+    public synchronized void enableGroupCommit(int maxBatch, long maxWaitMicros, long compactBytes) throws IOException {
+        enableJournal(0, compactBytes);
+        journal.enableGroupCommit(maxBatch, TimeUnit.MICROSECONDS.toNanos(maxWaitMicros));
+    }
+
+    // 返回的 future 在此前（包括其他线程）的全部变更都持久化后完成：
+    // 组提交模式下随所在批次的 fsync 完成，写入失败时以 IOException 异常完成，
+    // 之后的提交也都以异常完成，直到下一次 save() 成功（快照包含全部变更后截断日志）；
+    // 普通日志模式下当场 fsync；没有日志时等同于 flush()
+    public CompletableFuture<Void> commit() {
+        synchronized (this) {
+            if (journal != null) return journal.commit();
+        }
+        flush();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // 开启异步保存：变更后不必调用 save()，后台线程在有变更时每 intervalMillis 毫秒
+    // 或积压 maxPendingChanges 条变更时写一次快照；写文件期间不持有 store 的锁。
+    // 写出的是 snapshot() 取得的时间点视图，因此之后 store 会一直维护快照副本
+    // 调用 flush() 等待写入完成，退出前必须调用 close()（或在关闭钩子里调用）。
+    // 与日志模式互斥：日志已经逐条持久化变更并由后台合并，再定期重写快照只会抵消追加写入的好处
+    public synchronized void enableAsyncSave(long intervalMillis, int maxPendingChanges) {
+        if (persister != null) return;
+        if (journal != null) throw new IllegalStateException("已开启日志，变更由日志持久化，不能再开启异步保存");
+        persister = new AsyncPersister("task-async-save", intervalMillis, maxPendingChanges, this::persistAsync);
+    }
+
+    // 开启运行指标（各操作延迟、读写字节数、跳过的坏行数），返回同一个实例；
+    // 要统计加载须在 load() 之前调用
+    public synchronized TaskMetrics enableMetrics() {
+        if (metrics == null) metrics = new TaskMetrics();
+        return metrics;
+    }
+
+    // 未开启时返回 null
+    public synchronized TaskMetrics metrics() { return metrics; }
+
+    // 延迟加载描述，须在 load() 之前调用：加载文本格式的数据文件时只解析 id 和状态，
+    // 描述在第一次读取时才解码，最近读过的 cacheSize 条缓存起来（见 LazyTaskFile）
+    public synchronized void enableLazyLoad(int cacheSize) {
+        lazyCacheSize = Math.max(cacheSize, 0);
+    }
+
+    // 时间戳的来源，供测试替换
+    synchronized void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // 未开启指标时返回 0，不调用 System.nanoTime()
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    private void stopTimer(TaskMetrics.Op op, long startNanos) {
+        if (metrics != null) metrics.record(op, startNanos);
+    }
+
+    // 新任务优先复用已删除任务的 id（取最小的空闲 id），删除末尾的任务后 id 空间随之收缩；
+    // 可以在 load() 之前或之后调用。开启后 id 不再随插入顺序递增，
+    // listAfter 的游标所指任务被删除时只能按 id 大小近似定位
+    public synchronized void enableIdReuse() {
+        idAllocator = new IdAllocator(usedIds(index.keyArray()));
+    }
+
+    // 开启冷归档（<数据文件>.archive），须在 load() 之前调用：archiveDone 移出的任务压缩存放在归档文件中，
+    // 不再参与加载、保存、列表和搜索；findById 在内存中找不到时经由磁盘上的 id 索引到归档里查找。
+    // 已归档的 id 不会再分配给新任务
+    public synchronized void enableArchive() throws IOException {
+        if (archive == null) archive = new TaskArchive(new File(dataFile.getPath() + ".archive"));
+    }
+
+    // 加上已归档的 id：它们仍可经由 findById 取到，不能再分配给新任务
+    private int[] usedIds(int[] liveIds) {
+        if (archive == null || archive.size() == 0) return liveIds;
+        int[] archived = archive.ids();
+        int[] all = Arrays.copyOf(liveIds, liveIds.length + archived.length);
+        System.arraycopy(archived, 0, all, liveIds.length, archived.length);
+        return all;
+    }
+
+    // 当前内容的只读快照，之后的变更不影响它。快照与 store 共享任务对象，不复制任务：
+    // 第一次调用时按槽位数组建一棵只存引用的树（O(n) 次引用拷贝，约每个槽位 4~8 字节），之后每次 O(1)。
+    // 此后的写入按需复制：快照之后第一次修改某个任务时复制这一个任务和它在树中的路径，
+    // 同一任务之后的修改原地进行；不取快照时写入不分配
+    public synchronized TaskSnapshot snapshot() {
+        if (versions == null) {
+            versions = new TaskVersions();
+            for (int i = 0; i < slotCount; i++) versions.append(slots[i]);
+        }
+        TaskSnapshot s = versions.snapshot(changeVersion, liveCount, statusCounts);
+        edit = new Object(); // 现有任务从此归快照共享
+        return s;
+    }
+
+    // 等待此前的全部变更写入数据文件；未开启异步保存时等同于 save()
+    public void flush() {
+        AsyncPersister p;
+        synchronized (this) {
+            p = persister;
+            if (p == null) {
+                save();
+                return;
+            }
+        }
+        // 不能持有 store 的锁等待：写线程需要它来取快照
+        p.flush();
+    }
+
+    // 写完未保存的变更并停止异步保存线程，然后关闭日志（fsync 剩余记录）并停止后台合并。
+    // 可重复调用
+    public void close() {
+        AsyncPersister p;
+        synchronized (this) {
+            p = persister;
+            persister = null;
+        }
+        if (p != null) p.close();
+        closeJournal();
+        closeSlotted();
+    }
+
+    private synchronized void closeSlotted() {
+        if (slotted == null) return;
+        try {
+            slotted.close();
+        } catch (IOException e) {
+            System.out.println("关闭数据文件失败：" + e.getMessage());
+        }
+        slotted = null;
+    }
+
+    private synchronized void closeJournal() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("关闭日志失败：" + e.getMessage());
+        }
+        journal = null;
     }
 
-    // 启动时加载（坏行跳过；确保 nextId 递增唯一）
-    public void load() {
+    private void replayJournal(File log) {
+        try {
+            int skipped = TaskJournal.replay(log, this);
+            if (metrics != null) {
+                metrics.addSkippedLines(skipped);
+                metrics.addBytesRead(log.length());
+            }
+        } catch (IOException e) {
+            System.out.println("读取日志文件出错，但程序继续运行。");
+        }
+    }
+
+    private synchronized void compactIfLarger(long compactBytes) {
+        if (journal != null && journal.size() >= compactBytes) save();
+    }
+
+    // 启动时加载（坏行跳过；确保 nextId 递增唯一）；日志模式下随后回放日志
+    public synchronized void load() {
+        long t0 = startTimer();
+        loadSnapshot();
+        if (journal != null) replayJournal(journal.getFile());
+        else if (replayOnly != null) replayJournal(replayOnly);
+        if (archive != null && archive.maxId() >= nextId) nextId = archive.maxId() + 1;
+        if (idAllocator != null) idAllocator = new IdAllocator(usedIds(index.keyArray()));
+        stopTimer(TaskMetrics.Op.LOAD, t0);
+    }
+
+    private void loadSnapshot() {
         if (!dataFile.exists()) return; // 文件不存在则空列表
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(dataFile), StandardCharsets.UTF_8))) {
-            String line;
+        try {
             int maxId = 0;
-            while ((line = br.readLine()) != null) {
-                Task t = Task.decode(line);
-                if (t != null) {
-                    tasks.add(t);
-                    if (t.getId() > maxId) maxId = t.getId();
-                }
+            List<Task> tasks = readSnapshot();
+            // 从文件读入的任务不算变更；与已有任务 id 重复时以内存为准，它们已记在 dirty 中
+            trackDirty = false;
+            try {
+                for (Task t : tasks) maxId = accept(t, maxId);
+            } finally {
+                trackDirty = format == Format.SLOTTED;
             }
             nextId = maxId + 1;
+            if (metrics != null) metrics.addBytesRead(dataFile.length() + (slotted != null ? slotted.heapSize() : 0));
         } catch (IOException e) {
             System.out.println("读取数据文件出错，但程序继续运行。");
         }
     }
 
-    // 退出时保存（覆盖写入）
-    public void save() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(dataFile, false), StandardCharsets.UTF_8))) {
-            for (Task t : tasks) {
-                bw.write(t.encode());
-                bw.newLine();
+    // SLOTTED 格式读到同一格式的文件时保持打开，之后的保存只写变更；
+    // 开启延迟加载时文本文件只扫描 id 和状态
+    private List<Task> readSnapshot() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        if (format == Format.SLOTTED && SlottedTaskFile.isSlotted(dataFile)) {
+            closeSlotted();
+            slotted = SlottedTaskFile.open(dataFile, tasks);
+            return tasks;
+        }
+        if (lazyCacheSize >= 0 && LazyTaskFile.load(dataFile, lazyCacheSize, tasks, metrics)) return tasks;
+        return readTasks(dataFile, metrics);
+    }
+
+    // 读取快照文件中的全部任务（格式按文件头识别，坏行跳过）
+    static List<Task> readTasks(File file) throws IOException {
+        return readTasks(file, null);
+    }
+
+    // 同上；metrics 不为 null 时统计文本格式中跳过的坏行
+    static List<Task> readTasks(File file, TaskMetrics metrics) throws IOException {
+        if (SlottedTaskFile.isSlotted(file)) return SlottedTaskFile.read(file);
+        if (BinaryTaskFormat.isBinary(file)) {
+            try (InputStream in = new FileInputStream(file)) {
+                return BinaryTaskFormat.read(in);
+            }
+        }
+        if (file.length() >= PARALLEL_LOAD_THRESHOLD) {
+            // 大文件：内存映射 + 多核并行解码
+            return ParallelTaskLoader.load(file, metrics);
+        }
+        List<Task> out = new ArrayList<>();
+        long skipped = 0;
+        TaskCodec codec = new TaskCodec();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Task t = codec.decode(line, 0, line.length());
+                if (t != null) out.add(t);
+                else if (!line.isEmpty()) skipped++;
+            }
+        }
+        if (metrics != null) metrics.addSkippedLines(skipped);
+        return out;
+    }
+
+    // 按指定格式原子地写出整个数据文件
+    static void writeFile(File file, Format format, List<Task> tasks) throws IOException {
+        if (format == Format.SLOTTED) {
+            SlottedTaskFile.rewrite(file, tasks).close();
+            return;
+        }
+        SnapshotFile.write(file, os -> writeTasks(os, format, tasks));
+    }
+
+    // 按指定格式写出任务；SLOTTED 由多个文件组成，只能用 writeFile
+    static void writeTasks(OutputStream os, Format format, List<Task> tasks) throws IOException {
+        if (format == Format.SLOTTED) throw new IllegalArgumentException("SLOTTED 格式不能写入单个流");
+        if (format == Format.BINARY) {
+            BinaryTaskFormat.write(os, tasks);
+            return;
+        }
+        TaskCodec codec = new TaskCodec();
+        for (Task t : tasks) {
+            // 延迟加载且未改过描述的任务直接拷贝文件中的原始字节
+            if (!(t instanceof LazyTaskFile.LazyTask) || !((LazyTaskFile.LazyTask) t).encodeTo(codec)) codec.encode(t);
+            if (codec.size() >= SAVE_BUFFER_SIZE) codec.writeTo(os);
+        }
+        codec.writeTo(os);
+    }
+
+    // 重复 ID 与坏行同样处理：只保留第一次出现的记录；返回新的最大 ID
+    private int accept(Task t, int maxId) {
+        if (t == null || index.containsKey(t.getId())) return maxId;
+        append(t);
+        return Math.max(maxId, t.getId());
+    }
+
+    // 退出时保存（原子替换数据文件）；日志模式下写完快照后截断日志，只回放日志时删除日志。
+    // 返回是否成功，失败时已提示，原有数据文件保持不变
+    public synchronized boolean save() {
+        return saveNow();
+    }
+
+    private synchronized boolean saveNow() {
+        long t0 = startTimer();
+        boolean ok = format == Format.SLOTTED ? saveSlotted() : writeSnapshot(listAll(), changeVersion, metrics);
+        if (ok && journal != null) truncateJournal();
+        if (ok && replayOnly != null && replayOnly.exists() && !replayOnly.delete()) {
+            System.out.println("删除日志文件失败：" + replayOnly);
+        }
+        stopTimer(TaskMetrics.Op.SAVE, t0);
+        return ok;
+    }
+
+    // 只把 dirty 中的变更写进已打开的文件；首次保存、上次保存失败、变更太多或失效空间太多时整体重写。
+    // 调用时持有 store 的锁
+    private boolean saveSlotted() {
+        synchronized (saveLock) {
+            try {
+                if (slotted == null || slotted.shouldRewrite(dirty.size())) {
+                    closeSlotted();
+                    slotted = SlottedTaskFile.rewrite(dataFile, listAll());
+                    if (metrics != null) metrics.addBytesWritten(dataFile.length() + slotted.heapSize());
+                } else if (dirty.size() > 0) {
+                    int[] keys = dirty.keyArray();
+                    // 按内存中的槽位排序（已删除的在前），新增任务才会按插入顺序追加到文件末尾
+                    long[] order = new long[keys.length];
+                    for (int i = 0; i < keys.length; i++) order[i] = (long) (index.get(keys[i]) + 1) << 32 | i;
+                    Arrays.sort(order);
+                    int[] ids = new int[keys.length];
+                    Task[] tasks = new Task[keys.length];
+                    int[] flags = new int[keys.length];
+                    for (int i = 0; i < keys.length; i++) {
+                        ids[i] = keys[(int) order[i]];
+                        int slot = index.get(ids[i]);
+                        tasks[i] = slot >= 0 ? slots[slot] : null;
+                        flags[i] = dirty.get(ids[i]);
+                    }
+                    long written = slotted.apply(ids, tasks, flags, ids.length);
+                    if (metrics != null) metrics.addBytesWritten(written);
+                }
+            } catch (IOException e) {
+                System.out.println("保存失败：" + e.getMessage());
+                closeSlotted(); // 文件写到哪一步未知，下次整体重写
+                return false;
             }
+            dirty.clear();
+            writtenVersion = changeVersion;
+            return true;
+        }
+    }
+
+    private void truncateJournal() {
+        try {
+            journal.truncate();
         } catch (IOException e) {
-            System.out.println("保存失败：" + e.getMessage());
+            System.out.println("截断日志失败：" + e.getMessage());
+        }
+    }
+
+    // 异步保存线程调用：只在取快照时持有锁（O(1)），写文件时其他线程可以继续读写，
+    // 写出的是取快照那一刻的内容。SLOTTED 格式的增量写入很小，直接在锁内完成
+    private boolean persistAsync() {
+        if (format == Format.SLOTTED) return saveNow();
+        TaskSnapshot snapshot;
+        TaskMetrics m;
+        synchronized (this) {
+            snapshot = snapshot();
+            m = metrics;
         }
+        long version = snapshot.version();
+        long t0 = m == null ? 0 : System.nanoTime();
+        if (!writeSnapshot(snapshot.listAll(), version, m)) return false;
+        if (m != null) m.record(TaskMetrics.Op.SAVE, t0);
+        return true;
     }
 
-    public Task add(String description) {
-        Task t = new Task(nextId++, description, Task.Status.TODO);
-        tasks.add(t);
+    // 文件里已有更新的快照时跳过（返回 true）
+    private boolean writeSnapshot(List<Task> snapshot, long version, TaskMetrics m) {
+        synchronized (saveLock) {
+            if (version < writtenVersion) return true;
+            try {
+                // 写临时文件、fsync 后原子替换：崩溃时 load() 看到的仍是完整的旧快照，
+                // 日志模式下截断日志时快照也已经落盘
+                SnapshotFile.write(dataFile, os -> writeTasks(os, format, snapshot));
+            } catch (IOException e) {
+                System.out.println("保存失败：" + e.getMessage());
+                return false;
+            }
+            writtenVersion = version;
+            if (m != null) m.addBytesWritten(dataFile.length());
+            return true;
+        }
+    }
+
+    // 只在 SLOTTED 格式下记录，供 save() 增量写入
+    private void markDirty(int id, int flags) {
+        if (!trackDirty) return;
+        int old = dirty.get(id);
+        dirty.put(id, old < 0 ? flags : old | flags);
+    }
+
+    private void changed(int n) {
+        if (n <= 0) return;
+        changeVersion += n;
+        if (persister != null) persister.changed(n);
+    }
+
+    public synchronized Task add(String description) {
+        long t0 = startTimer();
+        long now = clock.getAsLong();
+        Task t = insert(new Task(idAllocator != null ? idAllocator.allocate() : nextId, description, Task.Status.TODO,
+                now, now, 0));
+        stopTimer(TaskMetrics.Op.ADD, t0);
+        return t;
+    }
+
+    // 以调用方分配的 id 加入任务（供 ShardedTaskStore 使用），时间戳原样保留；id 已存在时返回 null
+    synchronized Task insert(Task t) {
+        if (index.containsKey(t.getId())) return null;
+        t = append(t);
+        usedId(t.getId());
+        changed(1);
+        if (journal != null) {
+            try {
+                journal.logAdd(t);
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
         return t;
     }
 
-    public List<Task> listAll() { return new ArrayList<>(tasks); }
+    // 下一个 add() 将使用的 id，即已出现过的最大 id + 1
+    synchronized int nextId() { return nextId; }
 
-    public List<Task> listByStatus(Task.Status status) {
-        List<Task> out = new ArrayList<>();
-        for (Task t : tasks) if (t.getStatus() == status) out.add(t);
+    private void usedId(int id) {
+        if (id >= nextId) nextId = id + 1;
+        if (idAllocator != null) idAllocator.use(id);
+    }
+
+    // 批量添加：一次性扩容，日志中作为一个整体写入
+    public synchronized List<Task> addAll(Collection<String> descriptions) {
+        List<Task> added = new ArrayList<>(descriptions.size());
+        ensureSlots(slotCount + descriptions.size());
+        long now = clock.getAsLong();
+        for (String d : descriptions) {
+            Task t = new Task(idAllocator != null ? idAllocator.allocate() : nextId, d, Task.Status.TODO, now, now, 0);
+            added.add(append(t));
+            usedId(t.getId());
+        }
+        changed(added.size());
+        if (journal != null) {
+            List<String> records = new ArrayList<>(added.size());
+            for (Task t : added) records.add(TaskJournal.addRecord(t));
+            logBatch(records);
+        }
+        return added;
+    }
+
+    public synchronized List<Task> listAll() {
+        List<Task> out = new ArrayList<>(liveCount);
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null) out.add(slots[i]);
+        }
         return out;
     }
 
-    public Task findById(int id) {
-        for (Task t : tasks) if (t.getId() == id) return t;
+    // 按插入顺序跳过 offset 个任务后取最多 limit 个；无空槽时直接定位，否则需 O(offset)
+    public synchronized List<Task> listRange(int offset, int limit) {
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, liveCount - offset)));
+        if (offset < 0 || limit <= 0) return out;
+        int i;
+        if (slotCount == liveCount) {
+            i = offset;
+        } else {
+            i = 0;
+            for (int skipped = 0; i < slotCount && skipped < offset; i++) {
+                if (slots[i] != null) skipped++;
+            }
+        }
+        for (; i < slotCount && out.size() < limit; i++) {
+            if (slots[i] != null) out.add(slots[i]);
+        }
+        return out;
+    }
+
+    // 游标分页：返回 id 为 afterId 的任务之后（按插入顺序）的最多 limit 个任务。
+    // 下一页的游标是本页最后一个任务的 id；定位与页码无关：游标任务还在时 O(1)，
+    // 已被删除时在 id 递增的槽位上二分，只有 id 乱序（如开启 id 复用）时才退回线性扫描
+    public synchronized List<Task> listAfter(int afterId, int limit) {
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, liveCount)));
+        for (int i = startSlot(afterId); i < slotCount && out.size() < limit; i++) {
+            if (slots[i] != null) out.add(slots[i]);
+        }
+        return out;
+    }
+
+    // 同上，只返回指定状态的任务
+    public synchronized List<Task> listAfter(Task.Status status, int afterId, int limit) {
+        BitSet bits = byStatus[status.ordinal()];
+        List<Task> out = new ArrayList<>(Math.max(0, Math.min(limit, statusCounts[status.ordinal()])));
+        for (int i = bits.nextSetBit(startSlot(afterId)); i >= 0 && out.size() < limit; i = bits.nextSetBit(i + 1)) {
+            out.add(slots[i]);
+        }
+        return out;
+    }
+
+    private int startSlot(int afterId) {
+        if (afterId == FROM_START) return 0;
+        int slot = index.get(afterId);
+        if (slot >= 0) return slot + 1;
+        // 游标对应的任务已被删除：找第一个 id 更大的任务
+        if (!idsAscending) {
+            for (int i = 0; i < slotCount; i++) {
+                if (slots[i] != null && slots[i].getId() > afterId) return i;
+            }
+            return slotCount;
+        }
+        // 空槽不参与比较：取 mid 之后的第一个任务
+        int lo = 0;
+        int hi = slotCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int j = mid;
+            while (j < hi && slots[j] == null) j++;
+            if (j == hi || slots[j].getId() > afterId) hi = mid;
+            else lo = j + 1;
+        }
+        return lo;
+    }
+
+    // 按插入顺序遍历，不复制列表；遍历期间有增删会抛出 ConcurrentModificationException。
+    // 与其他线程并发使用时请改用 listAfter 分页
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private final int expectedModCount = modCount;
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < slotCount && slots[from] == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < slotCount;
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (next >= slotCount) throw new NoSuchElementException();
+                Task t = slots[next];
+                next = advance(next + 1);
+                return t;
+            }
+        };
+    }
+
+    public Stream<Task> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED), false);
+    }
+
+    // 只遍历该状态的位图，代价与该状态的任务数成正比
+    public synchronized List<Task> listByStatus(Task.Status status) {
+        long t0 = startTimer();
+        BitSet bits = byStatus[status.ordinal()];
+        List<Task> out = new ArrayList<>(statusCounts[status.ordinal()]);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            out.add(slots[i]);
+        }
+        stopTimer(TaskMetrics.Op.LIST_BY_STATUS, t0);
+        return out;
+    }
+
+    public synchronized int countByStatus(Task.Status status) { return statusCounts[status.ordinal()]; }
+
+    public synchronized int size() { return liveCount; }
+
+    public synchronized Task findById(int id) {
+        long t0 = startTimer();
+        int slot = index.get(id);
+        Task t = slot < 0 ? null : slots[slot];
+        if (t == null && archive != null) t = findArchived(id);
+        stopTimer(TaskMetrics.Op.FIND_BY_ID, t0);
+        return t;
+    }
+
+    // 归档中的任务以只读副本返回：它已不属于 store，markStatus 等操作找不到它
+    private Task findArchived(int id) {
+        try {
+            Task t = archive.find(id);
+            return t == null ? null : t.freeze();
+        } catch (IOException e) {
+            System.out.println("读取归档失败：" + e.getMessage());
+            return null;
+        }
+    }
+
+    // 把已完成的任务移到冷归档（须先 enableArchive()）：按插入顺序保留最后 keepRecent 个 DONE 任务，
+    // 其余的压缩写入归档后从 store 中删除，随后立即保存（日志模式下日志随之截断）。
+    // 返回归档的任务数，失败时返回 -1：写归档失败时 store 不变；保存失败时数据文件里仍有这些任务，
+    // 重新加载后以数据文件为准，下次归档时覆盖归档中的旧记录
+    public synchronized int archiveDone(int keepRecent) {
+        if (archive == null) throw new IllegalStateException("未开启归档");
+        BitSet done = byStatus[Task.Status.DONE.ordinal()];
+        int n = Math.max(0, statusCounts[Task.Status.DONE.ordinal()] - Math.max(keepRecent, 0));
+        List<Task> moved = new ArrayList<>(n);
+        for (int i = done.nextSetBit(0); i >= 0 && moved.size() < n; i = done.nextSetBit(i + 1)) {
+            moved.add(slots[i]);
+        }
+        return moveToArchive(moved);
+    }
+
+    // 按完成时间归档：完成于 olderThan 之前（含）的 DONE 任务移到冷归档，返回值与失败处理同 archiveDone(int)。
+    // 没有完成时间的任务（旧数据文件中的）无从判断新旧，留在 store 中，可用 archiveDone(int) 归档
+    public synchronized int archiveDone(Duration olderThan) {
+        if (archive == null) throw new IllegalStateException("未开启归档");
+        long cutoff = clock.getAsLong() - olderThan.toMillis();
+        BitSet done = byStatus[Task.Status.DONE.ordinal()];
+        List<Task> moved = new ArrayList<>();
+        for (int i = done.nextSetBit(0); i >= 0; i = done.nextSetBit(i + 1)) {
+            long completedAt = slots[i].getCompletedAt();
+            if (completedAt != 0 && completedAt <= cutoff) moved.add(slots[i]);
+        }
+        return moveToArchive(moved);
+    }
+
+    private int moveToArchive(List<Task> moved) {
+        if (moved.isEmpty()) return 0;
+        try {
+            long written = archive.append(moved);
+            if (metrics != null) metrics.addBytesWritten(written);
+        } catch (IOException e) {
+            System.out.println("写入归档失败：" + e.getMessage());
+            return -1;
+        }
+        for (Task t : moved) removeById(t.getId());
+        maybeCompact();
+        // removeById 释放了这些 id，而它们仍在归档中
+        if (idAllocator != null) idAllocator = new IdAllocator(usedIds(index.keyArray()));
+        changed(moved.size());
+        return saveNow() ? moved.size() : -1;
+    }
+
+    // 已归档的任务数；未开启归档时为 0
+    public synchronized int archivedCount() {
+        return archive == null ? 0 : archive.size();
+    }
+
+    public synchronized boolean delete(int id) {
+        long t0 = startTimer();
+        try {
+            if (!removeById(id)) return false;
+            maybeCompact();
+            changed(1);
+            if (journal != null) {
+                try {
+                    journal.logDelete(id);
+                } catch (IOException e) {
+                    journalFailed(e);
+                }
+            }
+            return true;
+        } finally {
+            stopTimer(TaskMetrics.Op.DELETE, t0);
+        }
+    }
+
+    // 状态变更须经由此方法，直接调用 Task.setStatus 不会更新状态索引
+    public synchronized boolean markStatus(int id, Task.Status status) {
+        long t0 = startTimer();
+        try {
+            int slot = index.get(id);
+            if (slot < 0) return false;
+            markStatusAt(slot, status, clock.getAsLong());
+            changed(1);
+            if (journal != null) {
+                try {
+                    journal.logStatus(slots[slot]);
+                } catch (IOException e) {
+                    journalFailed(e);
+                }
+            }
+            return true;
+        } finally {
+            stopTimer(TaskMetrics.Op.MARK_STATUS, t0);
+        }
+    }
+
+    // 描述变更须经由此方法，直接调用 Task.setDescription 不会更新搜索索引
+    public synchronized boolean updateDescription(int id, String description) {
+        int slot = index.get(id);
+        if (slot < 0) return false;
+        Task t = slots[slot];
+        setDescriptionAt(slot, description);
+        updateAt(slot, t.getStatus(), t.getCreatedAt(), clock.getAsLong(), t.getCompletedAt());
+        changed(1);
+        if (journal != null) {
+            try {
+                journal.logDescription(t);
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
+        return true;
+    }
+
+    // 全文搜索：查询中的每个词都须出现（中文按二字词匹配），结果按 id 升序
+    public synchronized List<Task> search(String query) {
+        return search(query, null);
+    }
+
+    // 同上，status 不为 null 时只返回该状态的任务
+    public synchronized List<Task> search(String query, Task.Status status) {
+        long t0 = startTimer();
+        List<Task> out = tasksOf(searchIndex().search(query), status);
+        stopTimer(TaskMetrics.Op.SEARCH, t0);
+        return out;
+    }
+
+    // 前缀搜索：任一以 prefix 开头的词出现即命中
+    public synchronized List<Task> searchPrefix(String prefix) {
+        long t0 = startTimer();
+        List<Task> out = tasksOf(searchIndex().searchPrefix(prefix), null);
+        stopTimer(TaskMetrics.Op.SEARCH, t0);
+        return out;
+    }
+
+    // 按时间区间查询：which 对应的时间戳落在 [fromMillis, toMillis) 内的任务，按时间升序（同一时刻按 id）。
+    // 该种时间的索引第一次查询时建立（O(n log n)），之后随增删改增量维护，每次查询 O(log n + k)。
+    // 时间戳为 0 的任务（旧数据文件中的任务、未完成任务的完成时间）不会出现在结果中，也不查归档
+    public synchronized List<Task> listBetween(Task.Time which, long fromMillis, long toMillis) {
+        TimeIndex ti = timeIndexes[which.ordinal()];
+        if (ti == null) {
+            ti = new TimeIndex();
+            for (int i = 0; i < slotCount; i++) {
+                Task t = slots[i];
+                if (t != null) ti.add(t.getTime(which), t.getId());
+            }
+            timeIndexes[which.ordinal()] = ti;
+        }
+        return tasksOf(ti.range(fromMillis, toMillis), null);
+    }
+
+    private TaskSearchIndex searchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TaskSearchIndex();
+            for (int i = 0; i < slotCount; i++) {
+                Task t = slots[i];
+                if (t != null) searchIndex.add(t.getId(), t.getDescription());
+            }
+        }
+        return searchIndex;
+    }
+
+    private List<Task> tasksOf(int[] ids, Task.Status status) {
+        List<Task> out = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            int slot = index.get(id);
+            if (slot < 0) continue;
+            Task t = slots[slot];
+            if (status == null || t.getStatus() == status) out.add(t);
+        }
+        return out;
+    }
+
+    // 批量标记状态，返回实际找到的任务数
+    public synchronized int markStatus(Collection<Integer> ids, Task.Status status) {
+        List<String> records = journal != null ? new ArrayList<>() : null;
+        long now = clock.getAsLong();
+        int n = 0;
+        for (int id : ids) {
+            int slot = index.get(id);
+            if (slot < 0) continue;
+            markStatusAt(slot, status, now);
+            if (records != null) records.add(TaskJournal.statusRecord(slots[slot]));
+            n++;
+        }
+        changed(n);
+        if (records != null) logBatch(records);
+        return n;
+    }
+
+    // 标记 [fromId, toId] 区间内的所有任务，返回实际找到的任务数。
+    // 区间比槽位数小时逐个 id 查索引，否则（稀疏或开放的区间）扫一遍槽位，代价为 O(min(区间长度, n))
+    public synchronized int markStatusRange(int fromId, int toId, Task.Status status) {
+        List<String> records = journal != null ? new ArrayList<>() : null;
+        long now = clock.getAsLong();
+        int n = 0;
+        if ((long) toId - fromId < slotCount) {
+            for (long id = fromId; id <= toId; id++) {
+                int slot = index.get((int) id);
+                if (slot < 0) continue;
+                markStatusAt(slot, status, now);
+                if (records != null) records.add(TaskJournal.statusRecord(slots[slot]));
+                n++;
+            }
+        } else {
+            for (int slot = 0; slot < slotCount; slot++) {
+                Task t = slots[slot];
+                if (t == null || t.getId() < fromId || t.getId() > toId) continue;
+                markStatusAt(slot, status, now);
+                if (records != null) records.add(TaskJournal.statusRecord(t));
+                n++;
+            }
+        }
+        changed(n);
+        if (records != null) logBatch(records);
+        return n;
+    }
+
+    // 批量删除：先全部置空槽位，最后只压缩一次；返回实际删除的任务数
+    public synchronized int deleteAll(Collection<Integer> ids) {
+        List<String> records = journal != null ? new ArrayList<>() : null;
+        int n = 0;
+        for (int id : ids) {
+            if (!removeById(id)) continue;
+            if (records != null) records.add(TaskJournal.deleteRecord(id));
+            n++;
+        }
+        maybeCompact();
+        changed(n);
+        if (records != null) logBatch(records);
+        return n;
+    }
+
+    // 按当前顺序把 id 重新编为 1..n（跳过已归档的 id），使 id 空间与任务数一样紧凑，
+    // 随后立即保存（日志模式下日志随之截断）。
+    // 返回映射：按顺序第 i 个任务原来的 id 是 result[i]（没有归档时它的新 id 就是 i + 1）；
+    // 保存失败时恢复原来的 id 并返回 null。
+    // 任务换成了新的 Task 对象，此前取得的 Task 不再属于 store；已取得的快照不受影响
+    public synchronized int[] renumber() {
+        compact();
+        int[] oldIds = new int[liveCount];
+        int[] newIds = new int[liveCount];
+        IdAllocator allocator = new IdAllocator(usedIds(new int[0]));
+        for (int i = 0; i < slotCount; i++) {
+            oldIds[i] = slots[i].getId();
+            newIds[i] = allocator.allocate();
+        }
+        int oldNextId = nextId;
+        assignIds(newIds, allocator.next());
+        changed(liveCount);
+        if (saveNow()) return oldIds;
+        // 快照没写成，日志里仍是旧 id 的记录
+        assignIds(oldIds, oldNextId);
         return null;
     }
 
-    public boolean delete(int id) {
-        Task t = findById(id);
-        if (t == null) return false;
-        return tasks.remove(t);
+    // 把第 i 个任务的 id 换成 ids[i]（调用前已压缩，没有空槽）并重建依赖 id 的结构
+    private void assignIds(int[] ids, int newNextId) {
+        index.clear();
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = slots[i].withId(ids[i]);
+            slots[i].edit = edit;
+            index.put(ids[i], i);
+        }
+        modCount++;
+        idsAscending = true;
+        lastAppendedId = Integer.MIN_VALUE;
+        for (int id : ids) {
+            if (id <= lastAppendedId) idsAscending = false;
+            lastAppendedId = Math.max(lastAppendedId, id);
+        }
+        nextId = newNextId;
+        if (idAllocator != null) idAllocator = new IdAllocator(usedIds(ids));
+        searchIndex = null; // 下次搜索时按新 id 重建
+        Arrays.fill(timeIndexes, null);
+        if (versions != null) {
+            versions = new TaskVersions();
+            for (int i = 0; i < slotCount; i++) versions.append(slots[i]);
+        }
+        // 文件中的 id 全部作废，SLOTTED 格式下次整体重写
+        dirty.clear();
+        closeSlotted();
+    }
+
+    private void logBatch(List<String> records) {
+        try {
+            journal.logBatch(records);
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+
+    // 日志写失败不影响内存中的操作，只提示用户
+    private void journalFailed(IOException e) {
+        System.out.println("写入日志失败：" + e.getMessage());
+    }
+
+    // 以下三个方法供 TaskJournal 回放使用，不再写日志
+    void replayAdd(Task t) {
+        int slot = index.get(t.getId());
+        if (slot >= 0) {
+            // 快照里已有该任务（合并后尚未截断日志时崩溃），以日志为准；旧记录没有时间戳时保留原有的
+            Task cur = slots[slot];
+            setDescriptionAt(slot, t.getDescription());
+            if (t.hasTimes()) updateAt(slot, t.getStatus(), t.getCreatedAt(), t.getUpdatedAt(), t.getCompletedAt());
+            else updateAt(slot, t.getStatus(), cur.getCreatedAt(), cur.getUpdatedAt(), cur.getCompletedAt());
+        } else {
+            append(t);
+        }
+        usedId(t.getId());
     }
 
-    public boolean markStatus(int id, Task.Status status) {
-        Task t = findById(id);
-        if (t == null) return false;
-        t.setStatus(status);
+    // updatedAt 为 0（旧记录）时只改状态，时间戳保持不变
+    void replayStatus(int id, Task.Status status, long updatedAt) {
+        int slot = index.get(id);
+        if (slot < 0) return;
+        if (updatedAt != 0) {
+            markStatusAt(slot, status, updatedAt);
+            return;
+        }
+        Task t = slots[slot];
+        updateAt(slot, status, t.getCreatedAt(), t.getUpdatedAt(), t.getCompletedAt());
+    }
+
+    // updatedAt 为 0（旧记录）时修改时间保持不变
+    void replayDescription(int id, String description, long updatedAt) {
+        int slot = index.get(id);
+        if (slot < 0) return;
+        Task t = slots[slot];
+        setDescriptionAt(slot, description);
+        updateAt(slot, t.getStatus(), t.getCreatedAt(), updatedAt != 0 ? updatedAt : t.getUpdatedAt(), t.getCompletedAt());
+    }
+
+    void replayDelete(int id) {
+        removeById(id);
+        maybeCompact();
+    }
+
+    private boolean removeById(int id) {
+        int slot = index.remove(id);
+        if (slot < 0) return false;
+        Task t = slots[slot];
+        byStatus[t.getStatus().ordinal()].clear(slot);
+        statusCounts[t.getStatus().ordinal()]--;
+        slots[slot] = null;
+        liveCount--;
+        modCount++;
+        if (versions != null) versions.set(slot, null);
+        if (idAllocator != null) idAllocator.release(id);
+        for (Task.Time which : TIMES) {
+            TimeIndex ti = timeIndexes[which.ordinal()];
+            if (ti != null) ti.remove(t.getTime(which), id);
+        }
+        markDirty(id, SlottedTaskFile.ALL);
+        if (searchIndex != null) searchIndex.remove(id, t.getDescription());
         return true;
     }
-}
 
+    // 空槽超过一半时压缩，保证均摊 O(1)
+    private void maybeCompact() {
+        if (slotCount > 32 && liveCount < slotCount / 2) compact();
+    }
+
+    // 调用方随后须调用 updateAt（记下修改时间）
+    private void setDescriptionAt(int slot, String description) {
+        Task t = editable(slot);
+        if (searchIndex != null) {
+            searchIndex.remove(t.getId(), t.getDescription());
+            searchIndex.add(t.getId(), description);
+        }
+        t.assignDescription(description);
+        markDirty(t.getId(), SlottedTaskFile.DESCRIPTION);
+    }
 
+    // 状态确有改变时记下修改时间；标记为 DONE 时记下完成时间，改回 TODO 时清零
+    private void markStatusAt(int slot, Task.Status status, long now) {
+        Task t = slots[slot];
+        if (t.getStatus() == status) return;
+        updateAt(slot, status, t.getCreatedAt(), now, status == Task.Status.DONE ? now : 0);
+    }
+
+    // 把槽位上的任务改为给定的状态和时间戳，维护状态索引和时间索引
+    private void updateAt(int slot, Task.Status status, long createdAt, long updatedAt, long completedAt) {
+        Task t = editable(slot);
+        Task.Status old = t.getStatus();
+        if (old != status) {
+            byStatus[old.ordinal()].clear(slot);
+            statusCounts[old.ordinal()]--;
+            byStatus[status.ordinal()].set(slot);
+            statusCounts[status.ordinal()]++;
+            t.assignStatus(status);
+        }
+        reindexTime(Task.Time.CREATED, t.getId(), t.getCreatedAt(), createdAt);
+        reindexTime(Task.Time.UPDATED, t.getId(), t.getUpdatedAt(), updatedAt);
+        reindexTime(Task.Time.COMPLETED, t.getId(), t.getCompletedAt(), completedAt);
+        t.setTimes(createdAt, updatedAt, completedAt);
+        markDirty(t.getId(), SlottedTaskFile.STATUS);
+    }
+
+    // 要修改的槽位上的任务：被快照共享时（edit 不是当前令牌）先换成副本，快照里留着原来的对象。
+    // 副本与原任务内容相同（延迟加载的描述也不解码），取快照之后每个任务最多复制一次
+    private Task editable(int slot) {
+        Task t = slots[slot];
+        if (t.edit == edit) return t;
+        t = t.withId(t.getId());
+        t.edit = edit;
+        slots[slot] = t;
+        if (versions != null) versions.set(slot, t);
+        return t;
+    }
+
+    private void reindexTime(Task.Time which, int id, long before, long after) {
+        TimeIndex ti = timeIndexes[which.ordinal()];
+        if (ti == null || before == after) return;
+        ti.remove(before, id);
+        ti.add(after, id);
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity > slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(capacity, slots.length * 2));
+        }
+    }
+
+    // 返回实际放入的任务：属于别的 store 的任务（ShardedTaskStore 重新分布时）先复制
+    private Task append(Task t) {
+        if (t.edit != null && t.edit != edit) t = t.withId(t.getId());
+        t.edit = edit;
+        if (t.getId() <= lastAppendedId) idsAscending = false;
+        lastAppendedId = Math.max(lastAppendedId, t.getId());
+        ensureSlots(slotCount + 1);
+        index.put(t.getId(), slotCount);
+        byStatus[t.getStatus().ordinal()].set(slotCount);
+        statusCounts[t.getStatus().ordinal()]++;
+        slots[slotCount++] = t;
+        liveCount++;
+        modCount++;
+        if (versions != null) versions.append(t);
+        for (Task.Time which : TIMES) {
+            TimeIndex ti = timeIndexes[which.ordinal()];
+            if (ti != null) ti.add(t.getTime(which), t.getId());
+        }
+        markDirty(t.getId(), SlottedTaskFile.ALL | SlottedTaskFile.APPENDED);
+        if (searchIndex != null) searchIndex.add(t.getId(), t.getDescription());
+        return t;
+    }
+
+    // 去掉空槽并重建索引，保持原有顺序
+    private void compact() {
+        for (BitSet bits : byStatus) bits.clear();
+        int w = 0;
+        for (int r = 0; r < slotCount; r++) {
+            Task t = slots[r];
+            if (t == null) continue;
+            slots[w] = t;
+            index.put(t.getId(), w);
+            byStatus[t.getStatus().ordinal()].set(w);
+            w++;
+        }
+        Arrays.fill(slots, w, slotCount, null);
+        slotCount = w;
+        if (versions != null) versions.compact();
+    }
+}
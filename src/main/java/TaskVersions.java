@@ -0,0 +1,92 @@
+import java.util.function.Consumer;
+
+// TaskStore 槽位数组的持久化副本：32 叉前缀树，叶子里是与槽位数组相同的任务对象（只存引用），下标与槽位一致。
+// 被快照共享的任务由 TaskStore 先复制再修改（TaskStore.editable），树里只需换掉这一个引用。
+// 取快照只是换一个编辑令牌，O(1)；之后写入时，令牌不同的节点（即被快照共享的节点）先复制再修改，
+// 令牌相同的节点原地修改。没有新快照时写入不分配树节点，取快照后每个节点最多复制一次。
+// 只由 TaskStore 在持有锁时修改
+class TaskVersions {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    static final class Node {
+        final Object edit;
+        final Object[] items; // 子节点，或最底层的 Task（空槽为 null）
+
+        Node(Object edit, Object[] items) {
+            this.edit = edit;
+            this.items = items;
+        }
+    }
+
+    private Object edit = new Object();
+    private Node root = new Node(edit, new Object[WIDTH]);
+    private int shift;  // 根节点所在层的位移，0 表示根就是叶子
+    private int count;  // 槽位数，与 TaskStore.slotCount 相同
+
+    int count() { return count; }
+
+    void append(Task t) {
+        if (count == 1L << (shift + BITS)) {
+            // 树满了，加一层
+            Object[] items = new Object[WIDTH];
+            items[0] = root;
+            root = new Node(edit, items);
+            shift += BITS;
+        }
+        set(count++, t);
+    }
+
+    // t 为 null 表示空槽
+    void set(int i, Task t) {
+        root = editable(root);
+        Node n = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int k = (i >>> level) & MASK;
+            Node child = (Node) n.items[k];
+            child = child == null ? new Node(edit, new Object[WIDTH]) : editable(child);
+            n.items[k] = child;
+            n = child;
+        }
+        n.items[i & MASK] = t;
+    }
+
+    private Node editable(Node n) {
+        return n.edit == edit ? n : new Node(edit, n.items.clone());
+    }
+
+    // 与 TaskStore.compact() 同步：去掉空槽，保持顺序。重建整棵树，旧快照不受影响
+    void compact() {
+        Node oldRoot = root;
+        int oldShift = shift;
+        int oldCount = count;
+        edit = new Object();
+        root = new Node(edit, new Object[WIDTH]);
+        shift = 0;
+        count = 0;
+        forEach(oldRoot, oldShift, oldCount, this::append);
+    }
+
+    TaskSnapshot snapshot(long version, int size, int[] statusCounts) {
+        TaskSnapshot s = new TaskSnapshot(root, shift, count, size, statusCounts.clone(), version);
+        edit = new Object(); // 现有节点从此归快照共享
+        return s;
+    }
+
+    // 按下标顺序访问 [0, count) 中非空的任务
+    static void forEach(Node root, int shift, int count, Consumer<Task> action) {
+        if (count > 0) forEach(root, shift, 0, count, action);
+    }
+
+    private static void forEach(Node n, int level, int base, int count, Consumer<Task> action) {
+        for (int k = 0; k < WIDTH; k++) {
+            int start = base + (k << level);
+            if (start >= count) return;
+            Object item = n.items[k];
+            if (item == null) continue;
+            if (level == 0) action.accept((Task) item);
+            else forEach((Node) item, level - BITS, start, count, action);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Arrays;
+import java.util.TreeMap;
+
+// 按时间排序的 id 索引（TaskStore.listBetween）：时间（毫秒）-> 该时刻的 id。
+// 每个时刻的 id 放在按 id 排序的数组里（[0] 为个数），区间查询只需顺序拷贝，O(log n + k)，
+// 结果按时间升序、同一时刻内按 id 升序。增删在桶内二分定位，O(log n + 桶大小)：
+// 同一毫秒内的 id 通常很少；批量添加产生的大桶里，按 id 递增追加是 O(1) 的。
+// 时间为 0（未知，或尚未完成）的任务不进索引
+class TimeIndex {
+    private final TreeMap<Long, int[]> byTime = new TreeMap<>();
+    private int size;
+
+    int size() { return size; }
+
+    void add(long time, int id) {
+        if (time == 0) return;
+        int[] ids = byTime.get(time);
+        if (ids == null) {
+            ids = new int[4];
+            ids[0] = 1;
+            ids[1] = id;
+            byTime.put(time, ids);
+            size++;
+            return;
+        }
+        int n = ids[0];
+        int i;
+        if (ids[n] < id) {
+            i = n + 1; // 按 id 递增追加，最常见
+        } else {
+            int found = Arrays.binarySearch(ids, 1, n + 1, id);
+            if (found >= 0) return; // 已在索引中
+            i = -found - 1;
+        }
+        if (n + 1 == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            byTime.put(time, ids);
+        }
+        System.arraycopy(ids, i, ids, i + 1, n + 1 - i);
+        ids[i] = id;
+        ids[0] = n + 1;
+        size++;
+    }
+
+    void remove(long time, int id) {
+        if (time == 0) return;
+        int[] ids = byTime.get(time);
+        if (ids == null) return;
+        int n = ids[0];
+        int i = Arrays.binarySearch(ids, 1, n + 1, id);
+        if (i < 0) return;
+        System.arraycopy(ids, i + 1, ids, i, n - i);
+        ids[0] = n - 1;
+        if (n == 1) byTime.remove(time);
+        size--;
+    }
+
+    // 时间在 [from, to) 内的 id
+    int[] range(long from, long to) {
+        if (from >= to) return new int[0];
+        int[] out = new int[16];
+        int n = 0;
+        for (int[] ids : byTime.subMap(from, true, to, false).values()) {
+            int count = ids[0];
+            if (n + count > out.length) out = Arrays.copyOf(out, Math.max(n + count, out.length * 2));
+            System.arraycopy(ids, 1, out, n, count);
+            n += count;
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -1,13 +1,65 @@
+import java.io.IOException;
 import java.util.List;
+import javax.management.JMException;
 import java.util.Scanner;
+import java.util.function.IntFunction;
 
 public class TodoApp {
     private static final String DATA_FILE = "tasks.txt";
-
+    // 日志超过 4MB 时后台合并进 tasks.txt
+    private static final long JOURNAL_COMPACT_BYTES = 4L << 20;
+    // 无法使用日志时，交互模式下有变更时最多 2 秒或积压 1000 条变更后由后台线程写一次快照
+    private static final long ASYNC_SAVE_INTERVAL_MS = 2000;
+    private static final int ASYNC_SAVE_MAX_PENDING = 1000;
+    // 列表每页显示的任务数
+    private static final int PAGE_SIZE = 20;
+
+    // 用法：
+    //   java TodoApp                    交互式菜单
+    //   java TodoApp --batch [文件|-]   批处理模式，从文件或标准输入读取命令（见 TodoBatch）
     public static void main(String[] args) {
+        boolean batch = args.length > 0 && args[0].equals("--batch");
         TaskStore store = new TaskStore(DATA_FILE);
-        store.load(); // 启动时加载
+        // 运行指标：菜单 9 / 批处理 stats 查看，也可用 jconsole 连接查看 TodoApp:type=TaskStore
+        TaskMetrics metrics = store.enableMetrics();
+        try {
+            metrics.registerMBean(DATA_FILE);
+        } catch (JMException e) {
+            System.out.println("无法注册 JMX 指标：" + e.getMessage());
+        }
+        boolean journaled = false;
+        if (batch) {
+            // 批处理结束时整体保存一次，不逐条记日志；只回放交互模式遗留的日志
+            store.enableJournalReplay();
+        } else {
+            try {
+                // 交互模式每次变更立即 fsync
+                store.enableJournal(1, JOURNAL_COMPACT_BYTES);
+                journaled = true;
+            } catch (IOException e) {
+                System.out.println("无法打开日志文件，改为后台定期保存：" + e.getMessage());
+            }
+        }
+        try {
+            // 批处理命令 archive 把已完成的任务移到 tasks.txt.archive，查找时仍可找到
+            store.enableArchive();
+        } catch (IOException e) {
+            System.out.println("无法打开归档文件：" + e.getMessage());
+        }
+        // 启动时只解析 id 和状态，描述在显示时才解码
+        store.enableLazyLoad(LazyTaskFile.DEFAULT_CACHE_SIZE);
+        store.load(); // 启动时加载（快照 + 日志）
+        // 任何方式退出（包括 Ctrl+C）都先写完未保存的变更
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close, "todo-shutdown"));
+
+        if (batch) {
+            int code = TodoBatch.main(store, args.length > 1 ? args[1] : null);
+            store.close();
+            System.exit(code);
+        }
 
+        // 变更由日志逐条追加、超过大小时后台合并；日志打不开时才由后台线程定期合并写入快照
+        if (!journaled) store.enableAsyncSave(ASYNC_SAVE_INTERVAL_MS, ASYNC_SAVE_MAX_PENDING);
         Scanner sc = new Scanner(System.in);
         System.out.println("欢迎使用 Terminal To-Do 应用！");
 
@@ -35,15 +87,15 @@ public class TodoApp {
                     break;
 
                 case 2: // 列出全部
-                    printTasks(store.listAll());
+                    printTasks(sc, after -> store.listAfter(after, PAGE_SIZE + 1));
                     break;
 
                 case 3: // 仅列出 TODO
-                    printTasks(store.listByStatus(Task.Status.TODO));
+                    printTasks(sc, after -> store.listAfter(Task.Status.TODO, after, PAGE_SIZE + 1));
                     break;
 
                 case 4: // 仅列出 DONE
-                    printTasks(store.listByStatus(Task.Status.DONE));
+                    printTasks(sc, after -> store.listAfter(Task.Status.DONE, after, PAGE_SIZE + 1));
                     break;
 
                 case 5: // 标记为 DONE
@@ -63,10 +115,14 @@ public class TodoApp {
                     break;
 
                 case 8: // 退出并保存
-                    store.save(); // 退出时保存
+                    store.close(); // 等待后台写完未保存的变更
                     System.out.println("已保存到 " + DATA_FILE + "，再见！");
                     return;
 
+                case 9: // 运行指标
+                    System.out.print(metrics.dump());
+                    break;
+
                 default:
                     System.out.println("无效选项，请重试。");
             }
@@ -83,14 +139,29 @@ public class TodoApp {
         System.out.println("6) 将某任务标记为 TODO");
         System.out.println("7) 删除任务");
         System.out.println("8) 退出并保存");
+        System.out.println("9) 查看运行指标");
     }
 
-    private static void printTasks(List<Task> tasks) {
-        if (tasks.isEmpty()) {
-            System.out.println("（空空如也）");
-            return;
+    // 分页输出：nextPage 按游标取最多 PAGE_SIZE + 1 个任务（多取一个用于判断是否还有下一页），
+    // 每页拼成一次输出
+    private static void printTasks(Scanner sc, IntFunction<List<Task>> nextPage) {
+        int cursor = TaskStore.FROM_START;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            List<Task> page = nextPage.apply(cursor);
+            if (page.isEmpty() && cursor == TaskStore.FROM_START) {
+                System.out.println("（空空如也）");
+                return;
+            }
+            int n = Math.min(page.size(), PAGE_SIZE);
+            sb.setLength(0);
+            for (int i = 0; i < n; i++) sb.append(page.get(i)).append('\n');
+            System.out.print(sb);
+            if (page.size() <= PAGE_SIZE) return;
+            cursor = page.get(n - 1).getId();
+            System.out.print("回车查看下一页，输入 q 返回：");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) return;
         }
-        for (Task t : tasks) System.out.println(t);
     }
 
     private static void mark(Scanner sc, TaskStore store, Task.Status st) {
@@ -0,0 +1,195 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+// 非交互的批处理模式：逐行读取命令并直接作用于 TaskStore，不渲染菜单，输出走缓冲。
+// 支持的命令（# 开头的行与空行忽略）：
+//   add <描述>
+//   done <id> | todo <id> | delete <id>
+//   list [all|todo|done]
+//   stats                          输出运行指标（store 开启了指标时）
+//   renumber <映射文件>             把 id 重新编为 1..n 并立即保存，"旧id<TAB>新id" 映射写入文件
+//   archive [保留条数]              把已完成的任务移到归档文件，按插入顺序保留最后若干个（默认 0）
+//   archive <天数>d                 把完成时间早于若干天前的任务移到归档文件
+class TodoBatch {
+    private static final int LIST_PAGE_SIZE = 4096;
+
+    private final TaskStore store;
+    private final PrintWriter out;
+    private int errors;
+
+    TodoBatch(TaskStore store, PrintWriter out) {
+        this.store = store;
+        this.out = out;
+    }
+
+    // 执行全部命令，返回出错的行数
+    int run(BufferedReader in) throws IOException {
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            execute(line.trim(), lineNo);
+        }
+        out.flush();
+        return errors;
+    }
+
+    private void execute(String line, int lineNo) {
+        if (line.isEmpty() || line.charAt(0) == '#') return;
+        int sp = line.indexOf(' ');
+        String cmd = (sp < 0 ? line : line.substring(0, sp)).toLowerCase(Locale.ROOT);
+        String arg = sp < 0 ? "" : line.substring(sp + 1).trim();
+
+        switch (cmd) {
+            case "add":
+                if (arg.isEmpty()) {
+                    error(lineNo, "描述不能为空");
+                } else {
+                    out.println("已添加：" + store.add(arg));
+                }
+                break;
+            case "done":
+                mark(arg, Task.Status.DONE, lineNo);
+                break;
+            case "todo":
+                mark(arg, Task.Status.TODO, lineNo);
+                break;
+            case "delete": {
+                Integer id = parseId(arg, lineNo);
+                if (id == null) break;
+                if (store.delete(id)) out.println("已删除：" + id);
+                else error(lineNo, "未找到该ID：" + id);
+                break;
+            }
+            case "list":
+                list(arg.toLowerCase(Locale.ROOT), lineNo);
+                break;
+            case "stats": {
+                TaskMetrics m = store.metrics();
+                if (m == null) error(lineNo, "未开启运行指标");
+                else out.print(m.dump());
+                break;
+            }
+            case "renumber":
+                renumber(arg, lineNo);
+                break;
+            case "archive":
+                archive(arg, lineNo);
+                break;
+            default:
+                error(lineNo, "未知命令：" + cmd);
+        }
+    }
+
+    private void mark(String arg, Task.Status status, int lineNo) {
+        Integer id = parseId(arg, lineNo);
+        if (id == null) return;
+        if (store.markStatus(id, status)) out.println("已更新：" + id + " -> " + status);
+        else error(lineNo, "未找到该ID：" + id);
+    }
+
+    private void archive(String arg, int lineNo) {
+        boolean byAge = arg.endsWith("d");
+        int k = 0;
+        if (!arg.isEmpty()) {
+            try {
+                k = Integer.parseInt(byAge ? arg.substring(0, arg.length() - 1) : arg);
+            } catch (NumberFormatException e) {
+                error(lineNo, "请输入整数或天数（如 30d）：" + arg);
+                return;
+            }
+        }
+        int n;
+        try {
+            n = byAge ? store.archiveDone(Duration.ofDays(k)) : store.archiveDone(k);
+        } catch (IllegalStateException e) {
+            error(lineNo, e.getMessage());
+            return;
+        }
+        if (n < 0) error(lineNo, "归档失败");
+        else out.println("已归档 " + n + " 条任务，共 " + store.archivedCount() + " 条");
+    }
+
+    private void renumber(String mappingFile, int lineNo) {
+        if (mappingFile.isEmpty()) {
+            error(lineNo, "请指定映射文件");
+            return;
+        }
+        int[] oldIds = store.renumber();
+        if (oldIds == null) {
+            error(lineNo, "保存失败，id 未改变");
+            return;
+        }
+        try {
+            TaskFileConverter.writeMapping(new File(mappingFile), oldIds, store.listAll());
+            out.println("已重新编号 " + oldIds.length + " 条任务，映射写入 " + mappingFile);
+        } catch (IOException e) {
+            error(lineNo, "写入映射文件失败：" + e.getMessage());
+        }
+    }
+
+    // 按页取出，避免一次复制全部任务
+    private void list(String which, int lineNo) {
+        Task.Status status;
+        switch (which) {
+            case "":
+            case "all":
+                status = null;
+                break;
+            case "todo":
+                status = Task.Status.TODO;
+                break;
+            case "done":
+                status = Task.Status.DONE;
+                break;
+            default:
+                error(lineNo, "list 只支持 all / todo / done");
+                return;
+        }
+        int cursor = TaskStore.FROM_START;
+        while (true) {
+            List<Task> page = status == null
+                    ? store.listAfter(cursor, LIST_PAGE_SIZE)
+                    : store.listAfter(status, cursor, LIST_PAGE_SIZE);
+            for (Task t : page) out.println(t);
+            if (page.size() < LIST_PAGE_SIZE) return;
+            cursor = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private Integer parseId(String s, int lineNo) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            error(lineNo, "请输入整数ID：" + s);
+            return null;
+        }
+    }
+
+    private void error(int lineNo, String msg) {
+        errors++;
+        out.println("第 " + lineNo + " 行：" + msg);
+    }
+
+    // 入口：source 为 null 或 "-" 时从标准输入读取；结束时只保存一次。返回进程退出码
+    static int main(TaskStore store, String source) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16), false);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                source == null || source.equals("-") ? System.in : new FileInputStream(source),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            int errors = new TodoBatch(store, out).run(in);
+            store.save();
+            out.println("已保存。共 " + errors + " 行出错。");
+            out.flush();
+            return errors == 0 ? 0 : 1;
+        } catch (IOException e) {
+            out.println("读取命令失败：" + e.getMessage());
+            out.flush();
+            return 2;
+        }
+    }
+}
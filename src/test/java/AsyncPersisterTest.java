@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncPersisterTest {
+
+    @Test
+    @DisplayName("测试多次变更合并为少量写入，flush 后全部落盘")
+    public void testCoalescing() {
+        AtomicInteger writes = new AtomicInteger();
+        AsyncPersister p = new AsyncPersister("test", 60_000, 1_000_000, () -> {
+            writes.incrementAndGet();
+            return true;
+        });
+        for (int i = 0; i < 10_000; i++) p.changed(1);
+        assertEquals(0, writes.get(), "间隔未到且积压未满时不写");
+        assertTrue(p.flush());
+        assertEquals(1, writes.get());
+        assertTrue(p.flush(), "没有新变更时立即返回");
+        assertEquals(1, writes.get());
+        p.close();
+    }
+
+    @Test
+    @DisplayName("测试积压达到阈值或间隔到期时自动写入")
+    public void testThresholdAndInterval() throws InterruptedException {
+        AtomicInteger writes = new AtomicInteger();
+        AsyncPersister p = new AsyncPersister("test", 60_000, 100, () -> {
+            writes.incrementAndGet();
+            return true;
+        });
+        for (int i = 0; i < 100; i++) p.changed(1);
+        waitFor(() -> writes.get() == 1);
+        p.close();
+
+        AtomicInteger writes2 = new AtomicInteger();
+        AsyncPersister q = new AsyncPersister("test", 50, 1_000_000, () -> {
+            writes2.incrementAndGet();
+            return true;
+        });
+        q.changed(1);
+        waitFor(() -> writes2.get() == 1);
+        q.close();
+    }
+
+    @Test
+    @DisplayName("测试写入失败时 flush 返回 false，之后按间隔重试成功")
+    public void testFailureAndRetry() throws InterruptedException {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        AtomicInteger writes = new AtomicInteger();
+        AsyncPersister p = new AsyncPersister("test", 20, 1_000_000, () -> {
+            writes.incrementAndGet();
+            return !fail.get();
+        });
+        p.changed(1);
+        assertFalse(p.flush());
+        fail.set(false);
+        waitFor(() -> writes.get() >= 2);
+        assertTrue(p.flush());
+        p.close();
+    }
+
+    @Test
+    @DisplayName("测试 close 写完未保存的变更；TaskStore 异步模式退出不丢数据")
+    public void testStoreCloseFlushes(@TempDir Path tempDir) throws IOException {
+        File data = tempDir.resolve("tasks.txt").toFile();
+        TaskStore store = new TaskStore(data.getAbsolutePath());
+        store.enableAsyncSave(60_000, 1_000_000);
+        for (int i = 1; i <= 1000; i++) store.add("任务" + i);
+        store.markStatus(5, Task.Status.DONE);
+        store.delete(6);
+        assertFalse(data.exists(), "尚未到写入时机");
+        store.close();
+        store.close(); // 可重复调用
+
+        TaskStore reloaded = new TaskStore(data.getAbsolutePath());
+        reloaded.load();
+        assertEquals(999, reloaded.size());
+        assertEquals(Task.Status.DONE, reloaded.findById(5).getStatus());
+        assertNull(reloaded.findById(6));
+    }
+
+    @Test
+    @DisplayName("测试异步保存与日志模式互斥：先开哪个，另一个都开不了，已开的照常工作")
+    public void testExclusiveWithJournal(@TempDir Path tempDir) throws IOException {
+        File data = tempDir.resolve("tasks.txt").toFile();
+        File log = new File(data.getPath() + ".log");
+        TaskStore journaled = new TaskStore(data.getAbsolutePath());
+        journaled.enableJournal(0, 0);
+        journaled.load();
+        assertThrows(IllegalStateException.class, () -> journaled.enableAsyncSave(60_000, 1));
+        journaled.add("任务1");
+        assertTrue(log.length() > 0);
+        assertFalse(data.exists(), "变更只追加到日志，不重写快照");
+        journaled.close();
+
+        TaskStore async = new TaskStore(tempDir.resolve("other.txt").toString());
+        async.enableAsyncSave(60_000, 1_000_000);
+        assertThrows(IllegalStateException.class, () -> async.enableJournal(0, 0));
+        async.add("任务1");
+        async.close();
+        assertEquals(1, TaskStore.readTasks(tempDir.resolve("other.txt").toFile()).size());
+    }
+
+    @Test
+    @DisplayName("测试写入与并发变更交错时，最终文件与内存一致")
+    public void testConcurrentMutations(@TempDir Path tempDir) throws Exception {
+        File data = tempDir.resolve("tasks.txt").toFile();
+        TaskStore store = new TaskStore(data.getAbsolutePath());
+        store.enableAsyncSave(1, 50);
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    Task t = store.add("并发任务");
+                    if (i % 3 == 0) store.markStatus(t.getId(), Task.Status.DONE);
+                    if (i % 7 == 0) store.delete(t.getId());
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread t : writers) t.join();
+        store.flush();
+
+        TaskStore reloaded = new TaskStore(data.getAbsolutePath());
+        reloaded.load();
+        assertEquals(store.listAll(), reloaded.listAll());
+        store.close();
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier cond) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cond.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class BinaryTaskFormatTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] encode(List<Task> tasks) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        BinaryTaskFormat.write(bos, tasks);
+        return bos.toByteArray();
+    }
+
+    private static List<Task> decode(byte[] data) throws IOException {
+        return BinaryTaskFormat.read(new ByteArrayInputStream(data));
+    }
+
+    @Test
+    @DisplayName("测试往返：换行、分隔符、null、负数 ID")
+    public void testRoundTrip() throws IOException {
+        List<Task> tasks = Arrays.asList(
+            new Task(1, "普通任务", Task.Status.TODO),
+            new Task(2, "多行\n描述|带分隔符", Task.Status.DONE),
+            new Task(-3, null, Task.Status.TODO),
+            new Task(Integer.MAX_VALUE, "", Task.Status.DONE),
+            new Task(Integer.MIN_VALUE, "emoji 😀", Task.Status.TODO));
+
+        List<Task> back = decode(encode(tasks));
+        assertEquals(tasks.size(), back.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).getId(), back.get(i).getId());
+            assertEquals(tasks.get(i).getStatus(), back.get(i).getStatus());
+            assertEquals(tasks.get(i).getDescription(), back.get(i).getDescription());
+        }
+    }
+
+    @Test
+    @DisplayName("测试损坏的块被跳过，其余块正常读取")
+    public void testCorruptBlockSkipped() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 10000; i++) tasks.add(new Task(i, "任务" + i, Task.Status.TODO));
+        byte[] data = encode(tasks);
+        // 破坏第一个块的负载（文件头 16 字节 + 块头 8 字节之后）
+        data[16 + 8 + 3] ^= 0x55;
+
+        List<Task> back = decode(data);
+        assertTrue(back.size() > 0 && back.size() < 10000);
+        assertEquals(4097, back.get(0).getId(), "第一个块（4096 条）应被整体跳过");
+    }
+
+    @Test
+    @DisplayName("测试文件尾部截断")
+    public void testTruncatedTail() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) tasks.add(new Task(i, "任务" + i, Task.Status.DONE));
+        byte[] data = encode(tasks);
+        List<Task> back = decode(Arrays.copyOf(data, data.length - 10));
+        assertEquals(4096, back.size());
+    }
+
+    @Test
+    @DisplayName("测试块头长度损坏（远超文件大小）时读到哪算哪，不按该长度分配内存")
+    public void testCorruptBlockLength() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) tasks.add(new Task(i, "任务" + i, Task.Status.TODO));
+        byte[] data = encode(tasks);
+        // 第二个块的长度字段：文件头 + 第一个块（块头 8 字节 + 负载 + crc 4 字节）之后再跳过条数
+        int firstLen = ByteBuffer.wrap(data, 16 + 4, 4).getInt();
+        ByteBuffer.wrap(data, 16 + 8 + firstLen + 4 + 4, 4).putInt(Integer.MAX_VALUE - 8);
+        assertEquals(4096, decode(data).size());
+    }
+
+    @Test
+    @DisplayName("测试单条描述超过块大小时仍能往返")
+    public void testLargeRecord() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 300_000) sb.append("很长的描述");
+        List<Task> tasks = Arrays.asList(new Task(1, "任务1", Task.Status.TODO), new Task(2, sb.toString(), Task.Status.DONE));
+        List<Task> back = decode(encode(tasks));
+        assertEquals(sb.toString(), back.get(1).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试文件头中的条数损坏（为负数）时仍能读取各块")
+    public void testCorruptCount() throws IOException {
+        List<Task> tasks = Arrays.asList(new Task(1, "任务1", Task.Status.TODO), new Task(2, "任务2", Task.Status.DONE));
+        byte[] data = encode(tasks);
+        // 条数在魔数和版本号之后（偏移 8，8 字节）
+        Arrays.fill(data, 8, 16, (byte) 0xFF);
+        assertEquals(2, decode(data).size());
+    }
+
+    @Test
+    @DisplayName("测试比文本格式更小")
+    public void testSmallerThanText() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            Task t = new Task(i, "任务" + i, i % 2 == 0 ? Task.Status.DONE : Task.Status.TODO);
+            tasks.add(t);
+            text.append(t.encode()).append('\n');
+        }
+        assertTrue(encode(tasks).length < text.toString().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    @DisplayName("测试 TaskStore 二进制模式保存并自动识别加载")
+    public void testStoreBinaryMode() throws IOException {
+        File f = tempDir.resolve("tasks.tdb").toFile();
+        TaskStore store = new TaskStore(f.getPath(), TaskStore.Format.BINARY);
+        store.add("任务1");
+        store.add("第二行\n继续");
+        store.markStatus(2, Task.Status.DONE);
+        store.save();
+        assertTrue(BinaryTaskFormat.isBinary(f));
+
+        TaskStore loaded = new TaskStore(f.getPath()); // 默认 TEXT，加载时按文件头识别
+        loaded.load();
+        assertEquals(2, loaded.size());
+        assertEquals("第二行\n继续", loaded.findById(2).getDescription());
+        assertEquals(Task.Status.DONE, loaded.findById(2).getStatus());
+        assertEquals(3, loaded.add("任务3").getId());
+    }
+
+    @Test
+    @DisplayName("测试时间戳往返，版本 1（没有时间戳）的文件仍可读取")
+    public void testTimesAndVersion1() throws IOException {
+        List<Task> tasks = Arrays.asList(
+            new Task(1, "新任务", Task.Status.TODO, 1_700_000_000_000L, 1_700_000_000_500L, 0),
+            new Task(2, "已完成", Task.Status.DONE, 1_700_000_000_000L, 1_699_999_999_000L, 1_700_000_001_000L),
+            new Task(3, "旧任务", Task.Status.DONE));
+        List<Task> back = decode(encode(tasks));
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).getCreatedAt(), back.get(i).getCreatedAt());
+            assertEquals(tasks.get(i).getUpdatedAt(), back.get(i).getUpdatedAt());
+            assertEquals(tasks.get(i).getCompletedAt(), back.get(i).getCompletedAt());
+        }
+
+        // 版本 1：id 7、DONE、描述 "ab"
+        byte[] payload = { 14, 1, 3, 'a', 'b' };
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.write(BinaryTaskFormat.MAGIC);
+        out.writeInt(1);
+        out.writeLong(1);
+        out.writeInt(1);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+        List<Task> old = decode(bos.toByteArray());
+        assertEquals(1, old.size());
+        assertEquals(7, old.get(0).getId());
+        assertEquals(Task.Status.DONE, old.get(0).getStatus());
+        assertEquals("ab", old.get(0).getDescription());
+        assertEquals(0, old.get(0).getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("测试离线转换器 文本 -> 二进制 -> 文本")
+    public void testConverterRoundTrip() throws IOException {
+        File txt = tempDir.resolve("tasks.txt").toFile();
+        File bin = tempDir.resolve("tasks.tdb").toFile();
+        File back = tempDir.resolve("back.txt").toFile();
+        String content = "1|TODO|任务1\n2|DONE|任务|2\n5|TODO|任务5\n";
+        Files.write(txt.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, TaskFileConverter.convert(txt, bin, TaskStore.Format.BINARY));
+        assertTrue(BinaryTaskFormat.isBinary(bin));
+        assertEquals(3, TaskFileConverter.convert(bin, back, TaskStore.Format.TEXT));
+        assertEquals(content, new String(Files.readAllBytes(back.toPath()), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,178 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentTaskStoreTest {
+
+    private File testFile;
+    private ConcurrentTaskStore store;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) {
+        testFile = tempDir.resolve("tasks.txt").toFile();
+        store = new ConcurrentTaskStore(testFile.getAbsolutePath());
+    }
+
+    @Test
+    @DisplayName("测试基本操作与 TaskStore 语义一致")
+    public void testBasicOperations() {
+        Task t1 = store.add("任务1");
+        Task t2 = store.add("任务2");
+        assertEquals(1, t1.getId());
+        assertEquals(2, t2.getId());
+
+        assertTrue(store.markStatus(2, Task.Status.DONE));
+        assertFalse(store.markStatus(99, Task.Status.DONE));
+        assertEquals(1, store.countByStatus(Task.Status.DONE));
+        assertEquals(t2, store.listByStatus(Task.Status.DONE).get(0));
+
+        assertTrue(store.delete(1));
+        assertFalse(store.delete(1));
+        assertNull(store.findById(1));
+        assertEquals(3, store.add("任务3").getId(), "删除后 ID 不重用");
+    }
+
+    @Test
+    @DisplayName("测试 save / load 往返")
+    public void testSaveLoad() throws IOException {
+        Files.write(testFile.toPath(), "1|TODO|任务1\n坏行\n7|DONE|任务7\n".getBytes(StandardCharsets.UTF_8));
+        store.load();
+        assertEquals(2, store.size());
+        assertEquals(8, store.add("新任务").getId());
+        store.save();
+
+        ConcurrentTaskStore reloaded = new ConcurrentTaskStore(testFile.getAbsolutePath());
+        reloaded.load();
+        assertEquals(3, reloaded.size());
+        assertEquals(Task.Status.DONE, reloaded.findById(7).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试多个线程同时保存：依次写入，不会因为共用临时文件而失败")
+    public void testConcurrentSave() throws Exception {
+        for (int i = 1; i <= 20000; i++) store.add("任务" + i);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        for (int w = 0; w < threads; w++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int k = 0; k < 10; k++) {
+                        store.add("并发任务");
+                        if (!store.save()) failures.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+
+        ConcurrentTaskStore reloaded = new ConcurrentTaskStore(testFile.getAbsolutePath());
+        reloaded.load();
+        assertEquals(20000 + threads * 10, reloaded.size(), "最后一次保存在全部添加之后");
+    }
+
+    @Test
+    @DisplayName("多线程压力测试：ID 唯一、状态索引与计数一致")
+    public void testConcurrentStress() throws Exception {
+        int writers = 8;
+        int opsPerWriter = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        ConcurrentLinkedQueue<Integer> ids = new ConcurrentLinkedQueue<>();
+        AtomicInteger maxId = new AtomicInteger(); // 目标 id 的上界；ConcurrentLinkedQueue.size() 是 O(n) 的
+        AtomicBoolean stop = new AtomicBoolean();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        for (int w = 0; w < writers; w++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < opsPerWriter; i++) {
+                        int op = rnd.nextInt(10);
+                        int target = 1 + rnd.nextInt(Math.max(1, maxId.get()));
+                        if (op < 5) {
+                            int id = store.add("任务").getId();
+                            ids.add(id);
+                            maxId.accumulateAndGet(id, Math::max);
+                        } else if (op < 8) {
+                            store.markStatus(target, rnd.nextBoolean() ? Task.Status.DONE : Task.Status.TODO);
+                        } else {
+                            store.delete(target);
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        // 读者与写者并发遍历，不应抛出 ConcurrentModificationException
+        for (int r = 0; r < 2; r++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    while (!stop.get()) {
+                        for (Task t : store.listByStatus(Task.Status.TODO)) assertNotNull(t);
+                        store.listAll();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS));
+        stop.set(true);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(errors.isEmpty(), () -> "并发操作出错：" + errors.peek());
+
+        Set<Integer> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size(), "分配的 ID 必须唯一");
+
+        List<Task> all = store.listAll();
+        int todo = 0;
+        int done = 0;
+        for (Task t : all) {
+            if (t.getStatus() == Task.Status.TODO) todo++;
+            else done++;
+        }
+        assertEquals(todo, store.countByStatus(Task.Status.TODO));
+        assertEquals(done, store.countByStatus(Task.Status.DONE));
+        assertEquals(todo, store.listByStatus(Task.Status.TODO).size());
+        assertEquals(done, store.listByStatus(Task.Status.DONE).size());
+        for (Task t : store.listByStatus(Task.Status.DONE)) {
+            assertEquals(Task.Status.DONE, t.getStatus());
+            assertSame(t, store.findById(t.getId()));
+        }
+    }
+}
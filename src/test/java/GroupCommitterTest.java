@@ -0,0 +1,172 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GroupCommitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile() {
+        return tempDir.resolve("tasks.txt").toFile();
+    }
+
+    private TaskStore openStore(int maxBatch, long maxWaitMicros) throws IOException {
+        TaskStore s = new TaskStore(dataFile().getAbsolutePath());
+        s.enableGroupCommit(maxBatch, maxWaitMicros, 0);
+        s.load();
+        return s;
+    }
+
+    @Test
+    @DisplayName("测试多线程并发提交时多条记录共享一次 fsync，内容按追加顺序写入")
+    public void testBatching() throws Exception {
+        File log = tempDir.resolve("test.log").toFile();
+        int threads = 8;
+        int perThread = 200;
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            GroupCommitter group = new GroupCommitter(out, 1000, TimeUnit.MILLISECONDS.toNanos(2));
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread th = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long seq = group.append("x\n".getBytes(StandardCharsets.UTF_8));
+                        group.whenDurable(seq).join();
+                    }
+                });
+                workers.add(th);
+                th.start();
+            }
+            for (Thread th : workers) th.join();
+            assertEquals(threads * perThread, group.appended());
+            assertTrue(group.commits() < threads * perThread / 2, "fsync 次数：" + group.commits());
+            group.close();
+        }
+        assertEquals(2L * threads * perThread, log.length());
+    }
+
+    @Test
+    @DisplayName("测试一批写入失败后之后的提交都以异常完成、不再写入，直到 discard")
+    public void testFailureIsSticky() throws Exception {
+        File log = tempDir.resolve("test.log").toFile();
+        AtomicBoolean fail = new AtomicBoolean();
+        try (FileOutputStream out = new FileOutputStream(log, true) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (fail.get()) throw new IOException("磁盘已满");
+                super.write(b, off, len);
+            }
+        }) {
+            GroupCommitter group = new GroupCommitter(out, 1, 0);
+            group.whenDurable(group.append(bytes("a\n"))).get(10, TimeUnit.SECONDS);
+
+            fail.set(true);
+            CompletableFuture<Void> lost = group.whenDurable(group.append(bytes("b\n")));
+            assertThrows(ExecutionException.class, () -> lost.get(10, TimeUnit.SECONDS));
+            fail.set(false);
+            CompletableFuture<Void> after = group.whenDurable(group.append(bytes("c\n")));
+            assertThrows(ExecutionException.class, () -> after.get(10, TimeUnit.SECONDS), "前面的记录没有落盘");
+
+            group.discard(() -> {});
+            group.whenDurable(group.append(bytes("d\n"))).get(10, TimeUnit.SECONDS);
+            group.close();
+        }
+        assertEquals("a\nd\n", new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("测试 commit() 完成后的变更在不保存的情况下可以恢复")
+    public void testDurableWithoutSave() throws Exception {
+        TaskStore store = openStore(64, 1000);
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            store.add("任务" + i);
+            if (i % 2 == 0) store.markStatus(i, Task.Status.DONE);
+            commits.add(store.commit());
+        }
+        store.delete(20);
+        store.commit().get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> f : commits) assertTrue(f.isDone());
+        assertFalse(dataFile().exists(), "没有 save 时不应写快照");
+
+        // 模拟崩溃：不 close，直接用新 store 读取日志
+        TaskStore recovered = new TaskStore(dataFile().getAbsolutePath());
+        recovered.enableJournal(1, 0);
+        recovered.load();
+        assertEquals(19, recovered.size());
+        assertEquals(9, recovered.countByStatus(Task.Status.DONE));
+        recovered.close();
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试攒够 maxBatch 条变更时不等待 maxWait 就提交")
+    public void testMaxBatch() throws Exception {
+        TaskStore store = openStore(10, TimeUnit.SECONDS.toMicros(60));
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.commit().get(10, TimeUnit.SECONDS);
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试批次未满时最多等待 maxWait 后提交")
+    public void testMaxWait() throws Exception {
+        TaskStore store = openStore(1000, 50_000);
+        long t0 = System.nanoTime();
+        store.add("任务1");
+        store.commit().get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        assertTrue(elapsedMillis >= 40, "应等待约 50ms，实际 " + elapsedMillis + "ms");
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试 save 截断日志并完成等待中的提交，close 写完剩余记录")
+    public void testSaveAndClose() throws Exception {
+        TaskStore store = openStore(1000, TimeUnit.SECONDS.toMicros(60));
+        store.add("任务1");
+        CompletableFuture<Void> pending = store.commit();
+        assertFalse(pending.isDone());
+        store.save();
+        assertTrue(pending.isDone(), "快照已包含该变更");
+        File log = new File(dataFile().getPath() + ".log");
+        assertEquals(0, log.length());
+
+        store.add("任务2");
+        store.markStatus(1, Task.Status.DONE);
+        store.close();
+        assertTrue(Files.readString(log.toPath()).contains("任务2"));
+
+        TaskStore reloaded = openStore(1, 0);
+        assertEquals(2, reloaded.size());
+        assertEquals(Task.Status.DONE, reloaded.findById(1).getStatus());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试没有日志时 commit() 保存快照")
+    public void testCommitWithoutJournal() {
+        TaskStore store = new TaskStore(dataFile().getAbsolutePath());
+        store.add("任务1");
+        assertTrue(store.commit().isDone());
+        assertTrue(dataFile().exists());
+    }
+}
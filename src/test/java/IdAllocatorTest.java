@@ -0,0 +1,155 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dataPath() {
+        return tempDir.resolve("tasks.txt").toString();
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId());
+        return out;
+    }
+
+    @Test
+    @DisplayName("测试优先分配最小的空闲 id，释放末尾 id 时回退")
+    public void testAllocator() {
+        IdAllocator a = new IdAllocator(new int[] { 1, 2, 5, -3 });
+        assertEquals(6, a.next());
+        assertEquals(2, a.freeCount());
+        assertEquals(3, a.allocate());
+        assertEquals(4, a.allocate());
+        assertEquals(6, a.allocate());
+
+        a.release(2);
+        a.release(4);
+        assertEquals(2, a.allocate());
+        a.release(6);
+        a.release(5);
+        assertEquals(4, a.next(), "4、5、6 都空闲时 next 回退到 4");
+        assertEquals(0, a.freeCount());
+
+        a.use(10);
+        assertEquals(11, a.next());
+        assertEquals(4, a.allocate(), "跳过的 4..9 记为空闲");
+        a.use(5);
+        assertEquals(6, a.allocate());
+    }
+
+    @Test
+    @DisplayName("测试开启复用后新任务使用已删除任务的 id，重新加载后仍然有效")
+    public void testReuseInStore() {
+        TaskStore store = new TaskStore(dataPath());
+        store.enableIdReuse();
+        store.load();
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.deleteAll(Arrays.asList(3, 4, 7, 10));
+        assertEquals(3, store.add("新任务1").getId());
+        assertEquals(4, store.addAll(Arrays.asList("新任务2")).get(0).getId());
+        assertEquals(7, store.add("新任务3").getId());
+        assertEquals(10, store.add("新任务4").getId());
+        assertEquals(11, store.add("新任务5").getId());
+        store.save();
+
+        TaskStore reloaded = new TaskStore(dataPath());
+        reloaded.enableIdReuse();
+        reloaded.load();
+        assertEquals(ids(store.listAll()), ids(reloaded.listAll()), "复用的 id 按插入顺序排在后面");
+        reloaded.delete(5);
+        assertEquals(5, reloaded.add("再来一个").getId());
+
+        TaskStore plain = new TaskStore(dataPath());
+        plain.load();
+        plain.delete(2);
+        assertEquals(12, plain.add("未开启复用").getId());
+    }
+
+    @Test
+    @DisplayName("测试 SLOTTED 格式下删除后复用的 id 增量保存后仍保持插入顺序")
+    public void testReuseWithSlotted() {
+        String path = tempDir.resolve("tasks.tds").toString();
+        TaskStore store = new TaskStore(path, TaskStore.Format.SLOTTED);
+        store.enableIdReuse();
+        store.load();
+        for (int i = 1; i <= 200; i++) store.add("任务" + i);
+        store.save();
+        store.delete(5);
+        store.add("复用 5");
+        for (int i = 0; i < 5; i++) store.add("追加" + i);
+        store.save();
+
+        TaskStore reloaded = new TaskStore(path, TaskStore.Format.SLOTTED);
+        reloaded.load();
+        assertEquals(ids(store.listAll()), ids(reloaded.listAll()));
+        assertEquals("复用 5", reloaded.findById(5).getDescription());
+        reloaded.close();
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试大批删除后重新编号：id 变为 1..n，返回映射，日志被截断")
+    public void testRenumber() throws IOException {
+        TaskStore store = new TaskStore(dataPath());
+        store.enableJournal(1, 0);
+        store.load();
+        for (int i = 1; i <= 100; i++) store.add("任务" + i);
+        for (int i = 1; i <= 100; i++) if (i % 10 != 0) store.delete(i);
+        store.markStatus(50, Task.Status.DONE);
+        assertFalse(store.search("任务50").isEmpty()); // 建立搜索索引
+        TaskSnapshot before = store.snapshot();
+
+        int[] oldIds = store.renumber();
+        assertArrayEquals(new int[] { 10, 20, 30, 40, 50, 60, 70, 80, 90, 100 }, oldIds);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), ids(store.listAll()));
+        assertEquals("任务50", store.findById(5).getDescription());
+        assertEquals(Task.Status.DONE, store.findById(5).getStatus());
+        assertNull(store.findById(50));
+        assertEquals(Arrays.asList(5), ids(store.search("任务50")));
+        assertEquals(11, store.add("新任务").getId());
+        assertEquals(50, before.listByStatus(Task.Status.DONE).get(0).getId(), "已取得的快照不受影响");
+        List<String> log = Files.readAllLines(new File(dataPath() + ".log").toPath());
+        assertEquals(1, log.size(), "重新编号后日志只含之后的变更：" + log);
+        store.close();
+
+        TaskStore reloaded = new TaskStore(dataPath());
+        reloaded.enableJournal(1, 0);
+        reloaded.load();
+        assertEquals(ids(store.listAll()), ids(reloaded.listAll()));
+        assertEquals("任务50", reloaded.findById(5).getDescription());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试离线重新编号：格式不变，写出映射文件")
+    public void testOfflineRenumber() throws IOException {
+        File in = tempDir.resolve("in.tdb").toFile();
+        File out = tempDir.resolve("out.tdb").toFile();
+        File mapping = tempDir.resolve("ids.tsv").toFile();
+        TaskStore.writeFile(in, TaskStore.Format.BINARY, Arrays.asList(
+                new Task(7, "任务7", Task.Status.TODO),
+                new Task(1000000, "任务1000000", Task.Status.DONE),
+                new Task(3, "任务3", Task.Status.TODO)));
+        assertEquals(3, TaskFileConverter.renumber(in, out, mapping));
+        assertTrue(BinaryTaskFormat.isBinary(out));
+        List<Task> tasks = TaskStore.readTasks(out);
+        assertEquals(Arrays.asList(1, 2, 3), ids(tasks));
+        assertEquals("任务1000000", tasks.get(1).getDescription());
+        assertEquals(Task.Status.DONE, tasks.get(1).getStatus());
+        assertEquals(Arrays.asList("7\t1", "1000000\t2", "3\t3"), Files.readAllLines(mapping.toPath()));
+    }
+}
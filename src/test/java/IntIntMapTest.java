@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+
+    @Test
+    @DisplayName("测试 put / get - 基本读写")
+    public void testPutGet() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+        map.put(-5, 20);
+        map.put(0, 30);
+        assertEquals(10, map.get(1));
+        assertEquals(20, map.get(-5));
+        assertEquals(30, map.get(0));
+        assertEquals(-1, map.get(2), "不存在的键应返回 -1");
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    @DisplayName("测试 put - 覆盖已有键")
+    public void testPutOverwrite() {
+        IntIntMap map = new IntIntMap();
+        map.put(7, 1);
+        map.put(7, 2);
+        assertEquals(2, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("测试 remove - 删除后可重新插入")
+    public void testRemove() {
+        IntIntMap map = new IntIntMap();
+        map.put(3, 33);
+        assertEquals(33, map.remove(3));
+        assertEquals(-1, map.remove(3));
+        assertFalse(map.containsKey(3));
+        map.put(3, 34);
+        assertEquals(34, map.get(3));
+    }
+
+    @Test
+    @DisplayName("测试扩容与大量删除")
+    public void testGrowAndChurn() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100_000; i++) map.put(i, i * 2);
+        for (int i = 0; i < 100_000; i += 2) map.remove(i);
+        assertEquals(50_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i * 2, map.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("测试 keyArray - 返回全部现存键")
+    public void testKeyArray() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100; i++) map.put(i, i);
+        for (int i = 0; i < 100; i += 2) map.remove(i);
+        int[] keys = map.keyArray();
+        java.util.Arrays.sort(keys);
+        assertEquals(50, keys.length);
+        for (int i = 0; i < keys.length; i++) assertEquals(2 * i + 1, keys[i]);
+    }
+}
@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("测试分桶：桶号单调递增，上界覆盖桶内所有值")
+    public void testBuckets() {
+        int prev = -1;
+        for (long v = 0; v < 100_000; v++) {
+            int b = LatencyHistogram.bucket(v);
+            assertTrue(b >= prev);
+            assertTrue(v <= LatencyHistogram.upperBound(b));
+            if (b > 0) assertTrue(v > LatencyHistogram.upperBound(b - 1));
+            prev = b;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    @DisplayName("测试分位数误差不超过 12.5%")
+    public void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) h.record(v * 1000);
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+        assertEquals(5_000_500, h.mean(), 1);
+        assertEquals(5_000_000, h.percentile(50), 5_000_000 * 0.125);
+        assertEquals(9_900_000, h.percentile(99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, h.percentile(100));
+        assertEquals(1000, h.percentile(0), 1000 * 0.125);
+    }
+
+    @Test
+    @DisplayName("测试空直方图、负数与 reset")
+    public void testEmptyAndReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(99));
+        assertEquals(0, h.mean());
+        h.record(-5);
+        assertEquals(1, h.count());
+        assertEquals(0, h.max());
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentile(50));
+    }
+
+    @Test
+    @DisplayName("测试多线程同时记录不丢计数")
+    public void testConcurrentRecord() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) h.record(i);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(400_000, h.count());
+        assertEquals(99_999, h.max());
+    }
+}
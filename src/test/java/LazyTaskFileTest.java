@@ -0,0 +1,213 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LazyTaskFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile() {
+        return tempDir.resolve("tasks.txt").toFile();
+    }
+
+    private void writeLines(String content) throws IOException {
+        Files.write(dataFile().toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TaskStore openLazy(int cacheSize) {
+        TaskStore store = new TaskStore(dataFile().getAbsolutePath());
+        store.enableLazyLoad(cacheSize);
+        store.load();
+        return store;
+    }
+
+    private static void assertSameTasks(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Task e = expected.get(i);
+            Task a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getDescription(), a.getDescription());
+        }
+    }
+
+    @Test
+    @DisplayName("测试延迟加载与普通加载结果一致：坏行、重复 ID、CRLF、单独的 CR、UTF-8、空描述")
+    public void testSameAsEagerLoad() throws IOException {
+        writeLines("1|TODO|普通任务\n"
+                + "坏行\n"
+                + "2|DONE|带|分隔符\r\n"
+                + "\n"
+                + "3|TODO|\n"
+                + "1|DONE|重复 ID\n"
+                + "-4|TODO|emoji 😀\n"
+                + "5|UNKNOWN|坏状态\n"
+                + "6|DONE|null\n"
+                + "8|TODO|单独的 CR 结尾\r9|DONE|下一行\r\r\n"
+                + "7|TODO|没有换行结尾");
+        TaskStore eager = new TaskStore(dataFile().getAbsolutePath());
+        eager.load();
+        TaskStore lazy = openLazy(16);
+        assertSameTasks(eager.listAll(), lazy.listAll());
+        assertEquals(eager.countByStatus(Task.Status.DONE), lazy.countByStatus(Task.Status.DONE));
+        assertEquals("单独的 CR 结尾", lazy.findById(8).getDescription());
+        assertEquals(10, lazy.add("新任务").getId());
+        assertTrue(lazy.findById(1) instanceof LazyTaskFile.LazyTask);
+    }
+
+    @Test
+    @DisplayName("测试数据文件被改名替换或删除后描述仍可读取，保存照常替换")
+    public void testFileReplaced() throws IOException {
+        writeLines("1|TODO|任务一\n2|DONE|任务二\n");
+        TaskStore store = openLazy(0);
+        Path other = tempDir.resolve("other.txt");
+        Files.write(other, "x".getBytes(StandardCharsets.UTF_8));
+        Files.move(other, dataFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        assertEquals("任务一", store.findById(1).getDescription());
+        Files.delete(dataFile().toPath());
+        assertEquals("任务二", store.findById(2).getDescription());
+        store.add("任务三");
+        store.save();
+        assertEquals(3, TaskStore.readTasks(dataFile()).size());
+        assertEquals("任务二", store.findById(2).getDescription());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试大文件分块扫描：行跨越块边界、比块还长的行、CRLF 落在块边界，保存后逐字节相同")
+    public void testLargeFile() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String filler = "描述".repeat(100);
+        int id = 1;
+        while (sb.length() < 1_500_000) {
+            sb.append(id).append(id % 3 == 0 ? "|DONE|" : "|TODO|").append(id).append(filler);
+            sb.append(id % 7 == 0 ? "\r\n" : "\n");
+            id++;
+        }
+        sb.append(id++).append("|TODO|").append("长".repeat(1_200_000)).append('\n');
+        sb.append(id).append("|DONE|最后一行");
+        writeLines(sb.toString());
+
+        TaskStore eager = new TaskStore(dataFile().getAbsolutePath());
+        eager.load();
+        TaskStore lazy = openLazy(16);
+        assertEquals(id, lazy.size());
+        assertSameTasks(eager.listAll(), lazy.listAll());
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals("1" + filler, lazy.findById(1).getDescription(), "中断标记不影响读取（已被挤出缓存，需再读文件）");
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        lazy.save();
+        assertEquals(sb.toString().replace("\r\n", "\n") + "\n",
+                new String(Files.readAllBytes(dataFile().toPath()), StandardCharsets.UTF_8));
+        assertEquals("最后一行", lazy.findById(id).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试描述按需解码，LRU 缓存命中时返回同一实例，被淘汰后重新解码")
+    public void testCache() throws IOException {
+        writeLines("1|TODO|任务一\n2|TODO|任务二\n3|TODO|任务三\n");
+        TaskStore store = openLazy(2);
+        Task t1 = store.findById(1);
+        String d1 = t1.getDescription();
+        assertEquals("任务一", d1);
+        assertSame(d1, t1.getDescription());
+
+        store.findById(2).getDescription();
+        store.findById(3).getDescription(); // 淘汰 1
+        String again = t1.getDescription();
+        assertEquals("任务一", again);
+        assertNotSame(d1, again);
+
+        TaskStore noCache = openLazy(0);
+        Task t = noCache.findById(2);
+        assertEquals("任务二", t.getDescription());
+        assertNotSame(t.getDescription(), t.getDescription());
+    }
+
+    @Test
+    @DisplayName("测试修改、删除后保存：未改动的行原样写回，重新加载与内存一致")
+    public void testSave() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 100; i++) sb.append(i).append("|TODO|任务").append(i).append('\n');
+        writeLines(sb.toString());
+        TaskStore store = openLazy(8);
+        store.save();
+        assertEquals(sb.toString(), new String(Files.readAllBytes(dataFile().toPath()), StandardCharsets.UTF_8));
+
+        assertTrue(store.updateDescription(10, "改过的描述"));
+        store.markStatus(20, Task.Status.DONE);
+        store.delete(30);
+        store.add("新任务");
+        store.save();
+        // 数据文件已被替换两次，延迟加载的任务仍能读取描述
+        assertEquals("任务50", store.findById(50).getDescription());
+        store.save();
+
+        TaskStore reloaded = new TaskStore(dataFile().getAbsolutePath());
+        reloaded.load();
+        assertSameTasks(store.listAll(), reloaded.listAll());
+        assertEquals("改过的描述", reloaded.findById(10).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试搜索与日志回放在延迟加载下正常工作")
+    public void testSearchAndJournal() throws IOException {
+        writeLines("1|TODO|写周报\n2|TODO|买牛奶\n");
+        TaskStore store = new TaskStore(dataFile().getAbsolutePath());
+        store.enableJournal(1, 0);
+        store.enableLazyLoad(4);
+        store.load();
+        assertEquals(Arrays.asList(1), ids(store.search("周报")));
+        store.updateDescription(2, "买面包");
+        store.close();
+
+        TaskStore recovered = new TaskStore(dataFile().getAbsolutePath());
+        recovered.enableJournal(1, 0);
+        recovered.enableLazyLoad(4);
+        recovered.load();
+        assertEquals("买面包", recovered.findById(2).getDescription());
+        assertEquals(Arrays.asList(2), ids(recovered.search("面包")));
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("测试二进制格式的文件照常全部加载，坏行计入指标")
+    public void testFallbackAndMetrics() throws IOException {
+        List<Task> tasks = Arrays.asList(new Task(1, "任务1", Task.Status.TODO), new Task(2, "任务2", Task.Status.DONE));
+        TaskStore.writeFile(dataFile(), TaskStore.Format.BINARY, tasks);
+        TaskStore binary = openLazy(4);
+        assertSameTasks(tasks, binary.listAll());
+        assertFalse(binary.findById(1) instanceof LazyTaskFile.LazyTask);
+
+        writeLines("1|TODO|任务1\n坏行\n也是坏行\n");
+        TaskStore store = new TaskStore(dataFile().getAbsolutePath());
+        TaskMetrics metrics = store.enableMetrics();
+        store.enableLazyLoad(4);
+        store.load();
+        assertEquals(1, store.size());
+        assertEquals(2, metrics.getSkippedLines());
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId());
+        return out;
+    }
+}
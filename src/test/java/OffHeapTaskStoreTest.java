@@ -0,0 +1,203 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class OffHeapTaskStoreTest {
+
+    private File testFile;
+    private OffHeapTaskStore store;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) {
+        testFile = tempDir.resolve("tasks.txt").toFile();
+        store = new OffHeapTaskStore(testFile.getAbsolutePath());
+    }
+
+    @Test
+    @DisplayName("测试基本操作与 TaskStore 语义一致")
+    public void testBasicOperations() {
+        Task t1 = store.add("任务1");
+        Task t2 = store.add("任务2");
+        assertEquals(1, t1.getId());
+        assertEquals(2, t2.getId());
+
+        assertTrue(store.markStatus(2, Task.Status.DONE));
+        assertFalse(store.markStatus(99, Task.Status.DONE));
+        assertEquals(1, store.countByStatus(Task.Status.DONE));
+        assertEquals(new Task(2, "任务2", Task.Status.DONE), store.findById(2));
+        assertEquals("任务2", store.listByStatus(Task.Status.DONE).get(0).getDescription());
+
+        assertTrue(store.delete(1));
+        assertFalse(store.delete(1));
+        assertNull(store.findById(1));
+        assertEquals(1, store.size());
+        assertEquals(3, store.add("任务3").getId(), "删除后 ID 不重用");
+    }
+
+    @Test
+    @DisplayName("测试返回的 Task 是副本，修改不影响存储")
+    public void testMaterializedCopies() {
+        store.add("原描述");
+        Task t = store.findById(1);
+        t.setDescription("改了");
+        t.setStatus(Task.Status.DONE);
+        assertEquals(new Task(1, "原描述", Task.Status.TODO), store.findById(1));
+
+        assertTrue(store.updateDescription(1, "新描述"));
+        assertEquals("新描述", store.findById(1).getDescription());
+        assertFalse(store.updateDescription(9, "x"));
+    }
+
+    @Test
+    @DisplayName("测试 null、空串、多字节和超长描述")
+    public void testDescriptions() {
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) big.append("长");
+        store.add(null);
+        store.add("");
+        store.add("表情😀与中文");
+        store.add(big.toString());
+        assertNull(store.findById(1).getDescription());
+        assertEquals("", store.findById(2).getDescription());
+        assertEquals("表情😀与中文", store.findById(3).getDescription());
+        assertEquals(big.toString(), store.findById(4).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试文本格式保存与 TaskStore 逐字节一致")
+    public void testSaveMatchesTaskStore(@TempDir Path tempDir) throws IOException {
+        File other = tempDir.resolve("other.txt").toFile();
+        TaskStore reference = new TaskStore(other.getAbsolutePath());
+        store.setClock(() -> 1234L);
+        reference.setClock(() -> 1234L);
+        String[] descs = { "任务1", null, "带|竖线", "表情😀" };
+        for (String d : descs) {
+            store.add(d);
+            reference.add(d);
+        }
+        store.markStatus(2, Task.Status.DONE);
+        reference.markStatus(2, Task.Status.DONE);
+        store.delete(3);
+        reference.delete(3);
+        store.save();
+        reference.save();
+        assertArrayEquals(Files.readAllBytes(other.toPath()), Files.readAllBytes(testFile.toPath()));
+    }
+
+    @Test
+    @DisplayName("测试维护时间戳，加载再保存 TaskStore 写出的文件时时间戳不丢失")
+    public void testTimestamps(@TempDir Path tempDir) throws IOException {
+        long[] now = { 1000 };
+        store.setClock(() -> now[0]);
+        store.add("任务1");
+        now[0] = 2000;
+        store.markStatus(1, Task.Status.DONE);
+        Task t = store.findById(1);
+        assertEquals(1000, t.getCreatedAt());
+        assertEquals(2000, t.getUpdatedAt());
+        assertEquals(2000, t.getCompletedAt());
+        now[0] = 3000;
+        store.updateDescription(1, "改过的描述");
+        store.markStatus(1, Task.Status.TODO);
+        assertEquals(0, store.findById(1).getCompletedAt());
+        assertEquals(3000, store.findById(1).getUpdatedAt());
+
+        for (TaskStore.Format format : TaskStore.Format.values()) {
+            File f = tempDir.resolve("times-" + format).toFile();
+            TaskStore.writeFile(f, format, Arrays.asList(
+                    new Task(1, "任务1", Task.Status.DONE, 100, 300, 300),
+                    new Task(2, "旧任务", Task.Status.TODO)));
+            OffHeapTaskStore s = new OffHeapTaskStore(f.getPath(), format);
+            s.load();
+            s.save();
+            List<Task> back = TaskStore.readTasks(f);
+            assertEquals(100, back.get(0).getCreatedAt(), format.toString());
+            assertEquals(300, back.get(0).getUpdatedAt(), format.toString());
+            assertEquals(300, back.get(0).getCompletedAt(), format.toString());
+            assertFalse(back.get(1).hasTimes(), format.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("测试各种格式的 save / load 往返")
+    public void testSaveLoad(@TempDir Path tempDir) {
+        for (TaskStore.Format format : TaskStore.Format.values()) {
+            String path = tempDir.resolve("tasks-" + format).toString();
+            OffHeapTaskStore s = new OffHeapTaskStore(path, format);
+            for (int i = 1; i <= 100; i++) s.add("任务" + i);
+            s.markStatus(50, Task.Status.DONE);
+            s.delete(7);
+            s.save();
+
+            OffHeapTaskStore loaded = new OffHeapTaskStore(path);
+            loaded.load();
+            assertEquals(s.listAll(), loaded.listAll(), format.name());
+            assertEquals(101, loaded.add("新任务").getId());
+        }
+    }
+
+    @Test
+    @DisplayName("测试加载跳过坏行和重复 ID")
+    public void testLoadSkipsBadLines() throws IOException {
+        Files.write(testFile.toPath(), "1|TODO|任务1\n坏行\n1|DONE|重复\n7|DONE|任务7\n".getBytes(StandardCharsets.UTF_8));
+        store.load();
+        assertEquals(2, store.size());
+        assertEquals("任务1", store.findById(1).getDescription());
+        assertEquals(8, store.add("新任务").getId());
+    }
+
+    @Test
+    @DisplayName("测试大量删除和修改后压缩，顺序与内容不变")
+    public void testCompaction() {
+        for (int i = 1; i <= 10_000; i++) store.add("描述描述描述描述描述描述 #" + i);
+        for (int i = 1; i <= 10_000; i++) {
+            if (i % 3 != 0) store.delete(i);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 3; i <= 10_000; i += 3) store.updateDescription(i, "第" + round + "轮 #" + i);
+        }
+        store.markStatus(9, Task.Status.DONE);
+
+        List<Task> all = store.listAll();
+        assertEquals(3333, all.size());
+        for (int k = 0; k < all.size(); k++) {
+            int id = 3 * (k + 1);
+            assertEquals(id, all.get(k).getId());
+            assertEquals("第19轮 #" + id, all.get(k).getDescription());
+        }
+        assertEquals(Task.Status.DONE, store.findById(9).getStatus());
+        assertEquals(1, store.listByStatus(Task.Status.DONE).size());
+        assertTrue(store.offHeapBytes() < 4 << 20, "垃圾应被回收：" + store.offHeapBytes());
+    }
+
+    @Test
+    @DisplayName("测试游标分页")
+    public void testListAfter() {
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.markStatus(4, Task.Status.DONE);
+        store.markStatus(8, Task.Status.DONE);
+        store.delete(5);
+
+        List<Task> page = store.listAfter(TaskStore.FROM_START, 3);
+        assertEquals(3, page.get(2).getId());
+        page = store.listAfter(4, 3);
+        assertEquals(6, page.get(0).getId());
+        assertEquals(8, page.get(2).getId());
+        assertEquals(6, store.listAfter(5, 1).get(0).getId(), "游标对应的任务已删除");
+        assertEquals(8, store.listAfter(Task.Status.DONE, 4, 10).get(0).getId());
+        assertTrue(store.listAfter(10, 5).isEmpty());
+        store.delete(6);
+        store.delete(7);
+        assertEquals(8, store.listAfter(6, 1).get(0).getId(), "连续的空槽");
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelTaskLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File write(String content) throws IOException {
+        File f = tempDir.resolve("tasks.txt").toFile();
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    @Test
+    @DisplayName("测试切块边界落在换行之后")
+    public void testSplitAlignsToNewline() throws IOException {
+        File f = write("1|TODO|一\n2|TODO|二二二\n3|DONE|三\n");
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = ParallelTaskLoader.split(ch, 5);
+            long prev = 0;
+            for (long[] c : chunks) {
+                assertEquals(prev, c[0]);
+                assertTrue(c[1] == ch.size() || Files.readAllBytes(f.toPath())[(int) c[1] - 1] == '\n');
+                prev = c[1];
+            }
+            assertEquals(ch.size(), prev);
+        }
+    }
+
+    @Test
+    @DisplayName("测试多块并行加载保持顺序并跳过坏行")
+    public void testLoadManyChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 5000; i++) {
+            if (i % 100 == 0) sb.append("坏行\n");
+            sb.append(i).append(i % 2 == 0 ? "|DONE|" : "|TODO|").append("任务|").append(i).append('\n');
+        }
+        File f = write(sb.toString());
+
+        List<Task> tasks = ParallelTaskLoader.load(f, 1024, new ForkJoinPool(4));
+        assertEquals(5000, tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            assertEquals(i + 1, t.getId());
+            assertEquals("任务|" + (i + 1), t.getDescription());
+        }
+        assertEquals(Task.Status.DONE, tasks.get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试 CRLF、单独的 CR 与末行无换行")
+    public void testCrlfAndNoTrailingNewline() throws IOException {
+        File f = write("1|TODO|任务1\r\n\r\n3|TODO|任务3\r2|DONE|任务2");
+        List<Task> tasks = ParallelTaskLoader.load(f, 4, ForkJoinPool.commonPool());
+        assertEquals(3, tasks.size());
+        assertEquals("任务1", tasks.get(0).getDescription());
+        assertEquals("任务3", tasks.get(1).getDescription());
+        assertEquals("任务2", tasks.get(2).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试空文件")
+    public void testEmptyFile() throws IOException {
+        File f = write("");
+        assertTrue(ParallelTaskLoader.load(f).isEmpty());
+    }
+}
@@ -0,0 +1,257 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ShardedTaskStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String basePath() {
+        return tempDir.resolve("tasks.txt").toString();
+    }
+
+    private static void assertSortedById(List<Task> tasks) {
+        for (int i = 1; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i - 1).getId() < tasks.get(i).getId(), "结果应按 id 升序");
+        }
+    }
+
+    @Test
+    @DisplayName("测试任务按 id 取模写入对应分片文件")
+    public void testRouting() throws IOException {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 4);
+        store.load();
+        for (int i = 1; i <= 20; i++) store.add("任务" + i);
+        store.save();
+        for (int shard = 0; shard < 4; shard++) {
+            List<Task> tasks = TaskStore.readTasks(ShardedTaskStore.shardFile(basePath(), shard));
+            assertEquals(5, tasks.size());
+            for (Task t : tasks) assertEquals(shard, t.getId() % 4);
+        }
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试增删改查与合并结果按 id 排序")
+    public void testOperations() {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 3);
+        store.load();
+        for (int i = 1; i <= 30; i++) store.add("任务" + i);
+        assertEquals(30, store.size());
+        assertEquals("任务7", store.findById(7).getDescription());
+
+        for (int i = 2; i <= 30; i += 2) assertTrue(store.markStatus(i, Task.Status.DONE));
+        assertTrue(store.updateDescription(5, "改过的描述"));
+        assertTrue(store.delete(9));
+        assertFalse(store.delete(9));
+        assertNull(store.findById(9));
+        assertFalse(store.markStatus(999, Task.Status.DONE));
+
+        List<Task> all = store.listAll();
+        assertEquals(29, all.size());
+        assertSortedById(all);
+        List<Task> done = store.listByStatus(Task.Status.DONE);
+        assertEquals(15, done.size());
+        assertEquals(15, store.countByStatus(Task.Status.DONE));
+        assertSortedById(done);
+        assertEquals("改过的描述", store.findById(5).getDescription());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试 save / load 往返，重新加载后继续分配新 id")
+    public void testSaveLoad() {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 4, TaskStore.Format.BINARY);
+        store.load();
+        for (int i = 1; i <= 50; i++) store.add("任务" + i);
+        store.markStatus(10, Task.Status.DONE);
+        store.delete(50);
+        store.save();
+        List<Task> expected = store.listAll();
+        store.close();
+
+        ShardedTaskStore reloaded = new ShardedTaskStore(basePath(), 4, TaskStore.Format.BINARY);
+        reloaded.load();
+        assertEquals(expected, reloaded.listAll());
+        assertEquals(50, reloaded.add("新任务").getId(), "已删除的最大 id 之后继续分配");
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试分片数变化后重新加载：任务移到所属分片，多余的旧分片文件保存后删除")
+    public void testReshard() throws IOException {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 4);
+        store.load();
+        for (int i = 1; i <= 40; i++) store.add("任务" + i);
+        store.save();
+        List<Task> expected = store.listAll();
+        store.close();
+
+        ShardedTaskStore fewer = new ShardedTaskStore(basePath(), 2);
+        fewer.load();
+        assertEquals(expected, fewer.listAll());
+        fewer.save();
+        assertFalse(ShardedTaskStore.shardFile(basePath(), 2).exists());
+        assertFalse(ShardedTaskStore.shardFile(basePath(), 3).exists());
+        fewer.close();
+
+        ShardedTaskStore more = new ShardedTaskStore(basePath(), 3);
+        more.load();
+        assertEquals(expected, more.listAll());
+        more.save();
+        more.close();
+        for (int shard = 0; shard < 3; shard++) {
+            for (Task t : TaskStore.readTasks(ShardedTaskStore.shardFile(basePath(), shard))) {
+                assertEquals(shard, t.getId() % 3);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试重新分片后有分片保存失败时保留旧分片文件，全部保存成功后才删除")
+    public void testReshardSaveFailureKeepsOrphans() throws IOException {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 3);
+        store.load();
+        for (int i = 1; i <= 30; i++) store.add("任务" + i);
+        assertTrue(store.save());
+        List<Task> expected = store.listAll();
+        store.close();
+        File orphan = ShardedTaskStore.shardFile(basePath(), 2);
+
+        ShardedTaskStore fewer = new ShardedTaskStore(basePath(), 2);
+        fewer.load();
+        // 让分片 1 无法写入：数据文件的位置被一个非空目录占住
+        File shard1 = ShardedTaskStore.shardFile(basePath(), 1);
+        assertTrue(shard1.delete());
+        assertTrue(new File(shard1, "占位").mkdirs());
+        assertFalse(fewer.save());
+        assertTrue(orphan.exists(), "保存失败时旧分片里的任务可能只在内存中");
+
+        new File(shard1, "占位").delete();
+        shard1.delete();
+        assertTrue(fewer.save());
+        assertFalse(orphan.exists());
+        fewer.close();
+
+        ShardedTaskStore reloaded = new ShardedTaskStore(basePath(), 2);
+        reloaded.load();
+        assertEquals(expected, reloaded.listAll());
+    }
+
+    @Test
+    @DisplayName("测试 SLOTTED 格式重新分片后旧分片的描述文件一并删除")
+    public void testReshardSlottedDeletesHeaps() {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 3, TaskStore.Format.SLOTTED);
+        store.load();
+        for (int i = 1; i <= 30; i++) store.add("任务" + i);
+        assertTrue(store.save());
+        store.close();
+        String orphan = ShardedTaskStore.shardFile(basePath(), 2).getName();
+        assertEquals(1, tempDir.toFile().list((d, name) -> name.startsWith(orphan + ".heap.")).length);
+
+        ShardedTaskStore fewer = new ShardedTaskStore(basePath(), 2, TaskStore.Format.SLOTTED);
+        fewer.load();
+        assertTrue(fewer.save());
+        fewer.close();
+        assertFalse(ShardedTaskStore.shardFile(basePath(), 2).exists());
+        assertEquals(0, tempDir.toFile().list((d, name) -> name.startsWith(orphan + ".heap.")).length);
+        assertEquals(1, tempDir.toFile().list((d, name) -> name.startsWith("tasks.txt.0.heap.")).length);
+    }
+
+    @Test
+    @DisplayName("测试重新分片时时间戳原样保留：旧数据中没有时间戳的任务不会被记为现在")
+    public void testReshardKeepsTimes() throws IOException {
+        TaskStore.writeFile(ShardedTaskStore.shardFile(basePath(), 0), TaskStore.Format.TEXT, Arrays.asList(
+                new Task(1, "旧任务", Task.Status.TODO),
+                new Task(2, "新任务", Task.Status.DONE, 100, 200, 200)));
+        TaskStore.writeFile(ShardedTaskStore.shardFile(basePath(), 1), TaskStore.Format.TEXT, Arrays.asList(
+                new Task(3, "孤立分片中的旧任务", Task.Status.TODO)));
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 1);
+        store.load();
+        assertFalse(store.findById(1).hasTimes());
+        assertFalse(store.findById(3).hasTimes());
+        assertEquals(200, store.findById(2).getCompletedAt());
+
+        Task added = store.add("任务4");
+        assertTrue(added.getCreatedAt() > 0);
+        assertEquals(added.getCreatedAt(), added.getUpdatedAt());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试多线程并发添加和标记：id 不重复，结果完整")
+    public void testConcurrentMutations() throws InterruptedException {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 4);
+        store.load();
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread th = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    Task task = store.add("并发任务");
+                    if (i % 2 == 0) store.markStatus(task.getId(), Task.Status.DONE);
+                }
+            });
+            workers.add(th);
+            th.start();
+        }
+        start.countDown();
+        for (Thread th : workers) th.join();
+
+        List<Task> all = store.listAll();
+        assertEquals(threads * perThread, all.size());
+        assertSortedById(all);
+        assertEquals(1, all.get(0).getId());
+        assertEquals(threads * perThread, all.get(all.size() - 1).getId());
+        assertEquals(threads * perThread / 2, store.countByStatus(Task.Status.DONE));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试日志模式：未保存的变更重新加载后从各分片日志恢复")
+    public void testWithJournal() throws IOException {
+        ShardedTaskStore store = new ShardedTaskStore(basePath(), 3);
+        store.enableJournal(1, 0);
+        store.load();
+        for (int i = 1; i <= 9; i++) store.add("任务" + i);
+        store.save();
+        store.markStatus(4, Task.Status.DONE);
+        store.delete(5);
+        store.add("任务10");
+        // 模拟崩溃：不保存
+        store.close();
+        assertTrue(new File(ShardedTaskStore.shardFile(basePath(), 1).getPath() + ".log").length() > 0);
+
+        ShardedTaskStore recovered = new ShardedTaskStore(basePath(), 3);
+        recovered.enableJournal(1, 0);
+        recovered.load();
+        assertEquals(9, recovered.size());
+        assertEquals(Task.Status.DONE, recovered.findById(4).getStatus());
+        assertNull(recovered.findById(5));
+        assertEquals("任务10", recovered.findById(10).getDescription());
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("测试分片数必须为正数")
+    public void testInvalidShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedTaskStore(basePath(), 0));
+    }
+}
@@ -0,0 +1,217 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SlottedTaskFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile() {
+        return tempDir.resolve("tasks.tds").toFile();
+    }
+
+    private TaskStore open() {
+        TaskStore s = new TaskStore(dataFile().getAbsolutePath(), TaskStore.Format.SLOTTED);
+        s.load();
+        return s;
+    }
+
+    private File[] heapFiles() {
+        File[] files = tempDir.toFile().listFiles((d, name) -> name.startsWith("tasks.tds.heap."));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void assertReloadEquals(TaskStore store) {
+        TaskStore reloaded = open();
+        assertEquals(store.listAll(), reloaded.listAll());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试往返：换行、分隔符、null、负数 ID")
+    public void testRoundTrip() throws IOException {
+        List<Task> tasks = Arrays.asList(
+            new Task(1, "普通任务", Task.Status.TODO),
+            new Task(2, "多行\n描述|带分隔符", Task.Status.DONE),
+            new Task(-3, null, Task.Status.TODO),
+            new Task(Integer.MAX_VALUE, "", Task.Status.DONE),
+            new Task(Integer.MIN_VALUE, "emoji 😀", Task.Status.TODO));
+        TaskStore.writeFile(dataFile(), TaskStore.Format.SLOTTED, tasks);
+        assertTrue(SlottedTaskFile.isSlotted(dataFile()));
+        assertEquals(tasks, SlottedTaskFile.read(dataFile()));
+        assertEquals(tasks, TaskStore.readTasks(dataFile()), "其他格式的 store 也能读取");
+    }
+
+    @Test
+    @DisplayName("测试标记一个任务只原地改写其槽位中的状态和时间戳")
+    public void testStatusChangeWritesInPlace() throws IOException {
+        TaskStore store = open();
+        for (int i = 1; i <= 100; i++) store.add("任务" + i);
+        store.save();
+        File heap = heapFiles()[0];
+        byte[] before = Files.readAllBytes(dataFile().toPath());
+        long heapBefore = heap.length();
+
+        store.markStatus(50, Task.Status.DONE);
+        store.save();
+        byte[] after = Files.readAllBytes(dataFile().toPath());
+        assertEquals(before.length, after.length);
+        long from = SlottedTaskFile.HEADER_SIZE + 49L * SlottedTaskFile.RECORD_SIZE + 4;
+        int diff = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] == after[i]) continue;
+            assertTrue(i >= from && i < from + 20, "改动超出状态和时间戳：" + i);
+            diff++;
+        }
+        assertTrue(diff > 0);
+        assertEquals(heapBefore, heap.length(), "描述文件不变");
+        assertEquals(1, heapFiles().length);
+        assertReloadEquals(store);
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试增删改增量写入后重新加载与内存一致，新增任务追加到末尾")
+    public void testIncrementalMutations() {
+        TaskStore store = open();
+        for (int i = 1; i <= 100; i++) store.add("任务" + i);
+        store.save();
+        long length = dataFile().length();
+
+        store.updateDescription(3, "改过的描述");
+        store.updateDescription(4, null);
+        store.markStatus(3, Task.Status.DONE);
+        store.delete(7);
+        store.delete(8);
+        store.save();
+        assertEquals(length, dataFile().length(), "删除只标记空槽");
+
+        store.add("新任务1");
+        store.add("新任务2");
+        store.save();
+        assertEquals(length + 2 * SlottedTaskFile.RECORD_SIZE, dataFile().length());
+        assertReloadEquals(store);
+
+        // 重新打开后继续增量写入
+        store.close();
+        TaskStore again = open();
+        again.markStatus(1, Task.Status.DONE);
+        again.delete(2);
+        again.save();
+        assertReloadEquals(again);
+        assertEquals(99, again.size());
+        again.close();
+    }
+
+    @Test
+    @DisplayName("测试添加后在保存前删除的任务不写入文件")
+    public void testAddThenDelete() {
+        TaskStore store = open();
+        store.add("任务1");
+        store.save();
+        long length = dataFile().length();
+        Task t = store.add("临时任务");
+        store.delete(t.getId());
+        store.save();
+        assertEquals(length, dataFile().length());
+        assertReloadEquals(store);
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试一次变更过多、空槽或失效描述过多时整体重写，旧描述文件被删除")
+    public void testRewrite() {
+        TaskStore store = open();
+        for (int i = 1; i <= 100; i++) store.add("任务" + i);
+        store.save();
+        String name = heapFiles()[0].getName();
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) ids.add(i);
+        store.markStatus(ids, Task.Status.DONE);
+        store.save();
+        assertEquals(1, heapFiles().length);
+        assertNotEquals(name, heapFiles()[0].getName(), "大量变更时整体重写");
+        assertReloadEquals(store);
+
+        name = heapFiles()[0].getName();
+        String big = "x".repeat(64 << 10);
+        for (int round = 0; round < 20; round++) {
+            store.updateDescription(1, big + round);
+            store.save();
+        }
+        assertEquals(1, heapFiles().length);
+        assertNotEquals(name, heapFiles()[0].getName(), "失效描述过多时整体重写");
+        assertTrue(heapFiles()[0].length() < 10L * big.length(), "重写时只保留最新描述");
+        assertReloadEquals(store);
+
+        long length = dataFile().length();
+        for (int i = 2; i <= 100; i += 2) store.delete(i); // 分批删除，每次变更数都不多
+        for (int i = 1; i <= 100; i += 2) {
+            if (i > 1) store.delete(i);
+            if (i % 10 == 9) store.save();
+        }
+        store.save();
+        assertTrue(dataFile().length() < length, "空槽过多时整体重写");
+        assertEquals(1, store.size());
+        assertReloadEquals(store);
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试日志模式：回放的变更在下次保存时增量写入")
+    public void testWithJournal() throws IOException {
+        TaskStore store = new TaskStore(dataFile().getAbsolutePath(), TaskStore.Format.SLOTTED);
+        store.enableJournal(1, 0);
+        store.load();
+        store.add("任务1");
+        store.add("任务2");
+        store.save();
+        store.markStatus(1, Task.Status.DONE);
+        store.add("任务3");
+        // 模拟崩溃：不保存，直接丢弃 store（日志已逐条 fsync）
+        store.close();
+
+        TaskStore recovered = new TaskStore(dataFile().getAbsolutePath(), TaskStore.Format.SLOTTED);
+        recovered.enableJournal(1, 0);
+        recovered.load();
+        assertEquals(3, recovered.size());
+        recovered.save();
+        recovered.close();
+        new File(dataFile().getPath() + ".log").delete();
+
+        TaskStore reloaded = open();
+        assertEquals(3, reloaded.size());
+        assertEquals(Task.Status.DONE, reloaded.findById(1).getStatus());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试读取其他格式的文件后首次保存整体重写为槽位格式")
+    public void testConvertOnSave() {
+        File data = dataFile();
+        TaskStore text = new TaskStore(data.getAbsolutePath());
+        text.add("任务1");
+        text.add("任务2");
+        text.save();
+        assertFalse(SlottedTaskFile.isSlotted(data));
+
+        TaskStore store = open();
+        store.markStatus(2, Task.Status.DONE);
+        store.save();
+        assertTrue(SlottedTaskFile.isSlotted(data));
+        assertReloadEquals(store);
+        store.close();
+    }
+}
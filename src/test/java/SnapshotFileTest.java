@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SnapshotFileTest {
+
+    @Test
+    @DisplayName("测试写入替换目标文件，不留下临时文件")
+    public void testReplace(@TempDir Path tempDir) throws IOException {
+        File target = tempDir.resolve("tasks.txt").toFile();
+        Files.write(target.toPath(), "旧内容\n".getBytes(StandardCharsets.UTF_8));
+        SnapshotFile.write(target, os -> os.write("新内容\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("新内容\n", Files.readString(target.toPath()));
+        assertFalse(new File(target.getPath() + SnapshotFile.TEMP_SUFFIX).exists());
+    }
+
+    @Test
+    @DisplayName("测试写到一半出错时原文件保持完整，临时文件被删除")
+    public void testFailureKeepsOldSnapshot(@TempDir Path tempDir) throws IOException {
+        File target = tempDir.resolve("tasks.txt").toFile();
+        TaskStore store = new TaskStore(target.getAbsolutePath());
+        store.add("任务1");
+        store.add("任务2");
+        store.save();
+        byte[] before = Files.readAllBytes(target.toPath());
+
+        IOException e = assertThrows(IOException.class, () -> SnapshotFile.write(target, os -> {
+            os.write(new byte[3 << 20]); // 超过缓冲区，部分内容已写入临时文件
+            throw new IOException("模拟崩溃");
+        }));
+        assertEquals("模拟崩溃", e.getMessage());
+        assertArrayEquals(before, Files.readAllBytes(target.toPath()));
+        assertFalse(new File(target.getPath() + SnapshotFile.TEMP_SUFFIX).exists());
+
+        TaskStore reloaded = new TaskStore(target.getAbsolutePath());
+        reloaded.load();
+        assertEquals(2, reloaded.size());
+    }
+
+    @Test
+    @DisplayName("测试上次崩溃残留的临时文件不影响加载与下一次保存")
+    public void testStaleTempFile(@TempDir Path tempDir) throws IOException {
+        File target = tempDir.resolve("tasks.txt").toFile();
+        File tmp = new File(target.getPath() + SnapshotFile.TEMP_SUFFIX);
+        TaskStore store = new TaskStore(target.getAbsolutePath());
+        store.add("任务1");
+        store.save();
+        Files.write(tmp.toPath(), "1|TO".getBytes(StandardCharsets.UTF_8)); // 写了一半的快照
+
+        TaskStore reloaded = new TaskStore(target.getAbsolutePath());
+        reloaded.load();
+        assertEquals(1, reloaded.size());
+        reloaded.add("任务2");
+        reloaded.save();
+        assertFalse(tmp.exists());
+
+        TaskStore again = new TaskStore(target.getAbsolutePath());
+        again.load();
+        assertEquals(2, again.size());
+    }
+
+    @Test
+    @DisplayName("测试跨越多个缓冲区的大快照，文本与二进制格式往返一致")
+    public void testLargeSnapshot(@TempDir Path tempDir) throws IOException {
+        for (TaskStore.Format format : TaskStore.Format.values()) {
+            File target = tempDir.resolve("tasks-" + format).toFile();
+            TaskStore store = new TaskStore(target.getAbsolutePath(), format);
+            List<String> descriptions = new ArrayList<>();
+            for (int i = 0; i < 50_000; i++) descriptions.add("大快照任务 " + i + " 描述文字描述文字");
+            store.addAll(descriptions);
+            store.save();
+            assertTrue(target.length() > 1 << 20);
+
+            TaskStore reloaded = new TaskStore(target.getAbsolutePath());
+            reloaded.load();
+            assertEquals(store.listAll(), reloaded.listAll());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dataPath() {
+        return tempDir.resolve("tasks.txt").toString();
+    }
+
+    private TaskStore openStore() throws IOException {
+        TaskStore s = new TaskStore(dataPath());
+        s.enableArchive();
+        s.load();
+        return s;
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId());
+        return out;
+    }
+
+    @Test
+    @DisplayName("测试归档已完成任务：热数据只剩未完成的任务，findById 仍能从归档中找到")
+    public void testArchiveDone() throws IOException {
+        TaskStore store = openStore();
+        for (int i = 1; i <= 20000; i++) store.add("任务" + i + " 重复的描述文字便于压缩");
+        List<Integer> done = new ArrayList<>();
+        for (int i = 1; i <= 20000; i += 2) done.add(i);
+        store.markStatus(done, Task.Status.DONE);
+
+        assertEquals(9990, store.archiveDone(10));
+        assertEquals(10010, store.size());
+        assertEquals(9990, store.archivedCount());
+        assertEquals(10, store.countByStatus(Task.Status.DONE), "保留最后 10 个已完成的任务");
+        assertEquals(19981, store.listByStatus(Task.Status.DONE).get(0).getId());
+        assertTrue(store.search("任务1").stream().noneMatch(t -> t.getId() == 1), "归档的任务不参与搜索");
+
+        Task archived = store.findById(1);
+        assertEquals("任务1 重复的描述文字便于压缩", archived.getDescription());
+        assertEquals(Task.Status.DONE, archived.getStatus());
+        assertThrows(UnsupportedOperationException.class, () -> archived.setStatus(Task.Status.TODO));
+        assertFalse(store.markStatus(1, Task.Status.TODO), "归档中的任务不属于 store");
+        assertEquals(19979, store.findById(19979).getId());
+        assertNull(store.findById(20001));
+
+        File archive = new File(dataPath() + ".archive");
+        assertTrue(archive.length() * 5 < 9990L * 40, "归档文件应被压缩：" + archive.length());
+        store.close();
+
+        TaskStore reloaded = openStore();
+        assertEquals(10010, reloaded.size());
+        assertEquals(1, reloaded.findById(1).getId());
+        assertEquals(20001, reloaded.add("新任务").getId());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试多次归档：索引合并，同一 id 再次归档时以新记录为准")
+    public void testArchiveTwice() throws IOException {
+        TaskStore store = openStore();
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.markStatus(Arrays.asList(2, 4), Task.Status.DONE);
+        assertEquals(2, store.archiveDone(0));
+        store.markStatus(Arrays.asList(1, 9), Task.Status.DONE);
+        assertEquals(2, store.archiveDone(0));
+        assertEquals(0, store.archiveDone(0));
+        assertEquals(4, store.archivedCount());
+        for (int id : new int[] { 1, 2, 4, 9 }) assertEquals("任务" + id, store.findById(id).getDescription());
+        assertEquals(Arrays.asList(3, 5, 6, 7, 8, 10), ids(store.listAll()));
+        store.close();
+
+        // 模拟保存前崩溃：数据文件里仍有 9 号任务，改了描述后再次归档
+        TaskStore.writeFile(new File(dataPath()), TaskStore.Format.TEXT,
+                Arrays.asList(new Task(9, "任务9 已修改", Task.Status.DONE)));
+        TaskStore again = openStore();
+        assertEquals("任务9 已修改", again.findById(9).getDescription(), "以数据文件为准");
+        assertEquals(1, again.archiveDone(0));
+        assertEquals(4, again.archivedCount());
+        assertEquals("任务9 已修改", again.findById(9).getDescription());
+        assertEquals("任务2", again.findById(2).getDescription());
+        again.close();
+    }
+
+    @Test
+    @DisplayName("测试已归档的 id 不被复用，重新编号时跳过")
+    public void testArchivedIdsStayReserved() throws IOException {
+        TaskStore store = new TaskStore(dataPath(), TaskStore.Format.SLOTTED);
+        store.enableArchive();
+        store.enableIdReuse();
+        store.load();
+        for (int i = 1; i <= 6; i++) store.add("任务" + i);
+        store.markStatus(Arrays.asList(1, 6), Task.Status.DONE);
+        assertEquals(2, store.archiveDone(0));
+        store.delete(3);
+        assertEquals(3, store.add("复用 3").getId());
+        assertEquals(7, store.add("新任务").getId(), "1 和 6 已归档，不能复用");
+
+        int[] oldIds = store.renumber();
+        assertArrayEquals(new int[] { 2, 4, 5, 3, 7 }, oldIds);
+        assertEquals(Arrays.asList(2, 3, 4, 5, 7), ids(store.listAll()));
+        assertEquals("任务1", store.findById(1).getDescription());
+        assertEquals("任务6", store.findById(6).getDescription());
+        store.close();
+
+        TaskStore reloaded = new TaskStore(dataPath(), TaskStore.Format.SLOTTED);
+        reloaded.enableArchive();
+        reloaded.load();
+        assertEquals(Arrays.asList(2, 3, 4, 5, 7), ids(reloaded.listAll()));
+        assertEquals(8, reloaded.add("再来一个").getId());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试日志模式下归档后日志被截断，重启后任务不会回到热数据")
+    public void testArchiveWithJournal() throws IOException {
+        TaskStore store = new TaskStore(dataPath());
+        store.enableJournal(1, 0);
+        store.enableArchive();
+        store.load();
+        for (int i = 1; i <= 5; i++) store.add("任务" + i);
+        store.markStatus(3, Task.Status.DONE);
+        assertEquals(1, store.archiveDone(0));
+        assertEquals(0, new File(dataPath() + ".log").length());
+        store.close();
+
+        TaskStore reloaded = new TaskStore(dataPath());
+        reloaded.enableJournal(1, 0);
+        reloaded.enableArchive();
+        reloaded.load();
+        assertEquals(4, reloaded.size());
+        assertEquals(0, reloaded.countByStatus(Task.Status.DONE));
+        assertEquals("任务3", reloaded.findById(3).getDescription());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试按完成时间归档：只移走完成得足够早的任务，没有完成时间的任务保留")
+    public void testArchiveByAge() throws IOException {
+        TaskStore.writeFile(new File(dataPath()), TaskStore.Format.TEXT,
+                Arrays.asList(new Task(1, "旧文件中的任务", Task.Status.DONE)));
+        TaskStore store = openStore();
+        long[] now = { 1_000_000_000L };
+        store.setClock(() -> now[0]);
+        for (int i = 2; i <= 5; i++) store.add("任务" + i);
+        store.markStatus(2, Task.Status.DONE);
+        store.markStatus(4, Task.Status.DONE);
+        now[0] += Duration.ofDays(10).toMillis();
+        store.markStatus(3, Task.Status.DONE);
+        now[0] += Duration.ofDays(1).toMillis();
+
+        assertEquals(2, store.archiveDone(Duration.ofDays(7)));
+        assertEquals(Arrays.asList(1, 3, 5), ids(store.listAll()));
+        assertEquals("任务4", store.findById(4).getDescription());
+        assertEquals(0, store.archiveDone(Duration.ofDays(7)));
+        assertEquals(1, store.archiveDone(Duration.ZERO));
+        assertEquals(Arrays.asList(1, 5), ids(store.listAll()));
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试归档块长度损坏时报错而不是按文件中的长度分配内存")
+    public void testCorruptBlockLength() throws IOException {
+        TaskStore store = openStore();
+        store.add("任务1");
+        store.markStatus(1, Task.Status.DONE);
+        assertEquals(1, store.archiveDone(0));
+        store.close();
+
+        try (RandomAccessFile f = new RandomAccessFile(dataPath() + ".archive", "rw")) {
+            f.seek(4);
+            f.writeInt(Integer.MAX_VALUE);
+        }
+        TaskStore reloaded = openStore();
+        assertNull(reloaded.findById(1));
+        reloaded.close();
+
+        try (RandomAccessFile f = new RandomAccessFile(dataPath() + ".archive", "rw")) {
+            int compressedLen = (int) f.length() - 8;
+            f.seek(0);
+            f.writeInt(Integer.MAX_VALUE);
+            f.writeInt(compressedLen);
+        }
+        reloaded = openStore();
+        assertNull(reloaded.findById(1));
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试未开启归档时 archiveDone 抛出异常")
+    public void testNotEnabled() {
+        TaskStore store = new TaskStore(dataPath());
+        assertThrows(IllegalStateException.class, () -> store.archiveDone(0));
+        assertEquals(0, store.archivedCount());
+    }
+}
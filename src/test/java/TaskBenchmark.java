@@ -0,0 +1,358 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// TaskStore / Task 编解码热点路径的基准测试。
+// 所有类都在默认包中，而 JMH 不支持默认包里的基准类，因此这里用一个很小的
+// JMH 风格测量器：预热 + 多轮测量，结果写入 Blackhole 防止被优化掉，
+// 输出为制表符分隔的文本，可以直接在不同版本之间 diff。
+//
+//   mvn -Pbench test-compile exec:java
+//   java -cp target/classes:target/test-classes TaskBenchmark [规模列表] [结果文件]
+//   例如：java ... TaskBenchmark 10000,1000000 bench-1.0.0.tsv
+public class TaskBenchmark {
+    private static final long SEED = 42;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    private static long blackhole;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = parseSizes(args.length > 0 ? args[0] : "10000,1000000,10000000");
+        PrintStream out = args.length > 1
+                ? new PrintStream(new FileOutputStream(args[1]), true, "UTF-8")
+                : System.out;
+        out.println("# benchmark\tsize\tops_per_sec\terror\tunit");
+
+        File dir = Files.createTempDirectory("task-bench").toFile();
+        try {
+            List<String> lines = generateLines(10_000);
+            List<Task> tasks = new ArrayList<>(lines.size());
+            for (String line : lines) tasks.add(Task.decode(line));
+            report(out, "codec.encode", lines.size(), measure(() -> benchEncode(tasks)), "lines");
+            report(out, "codec.decode", lines.size(), measure(() -> benchDecode(lines)), "lines");
+            runGroupCommit(out, dir);
+
+            for (int size : sizes) {
+                runStoreBenchmarks(out, dir, size);
+                runFootprint(out, dir, size);
+            }
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.delete();
+        }
+        System.out.println("blackhole=" + blackhole);
+    }
+
+    private static void runStoreBenchmarks(PrintStream out, File dir, int size) throws IOException {
+        File data = new File(dir, "tasks-" + size + ".txt");
+        TaskStore store = new TaskStore(data.getPath());
+        populate(store, size);
+        store.save();
+
+        report(out, "store.save", size, measure(() -> {
+            store.save();
+            return 1;
+        }), "ops");
+        report(out, "store.load", size, measure(() -> {
+            TaskStore s = new TaskStore(data.getPath());
+            s.load();
+            blackhole += s.size();
+            return 1;
+        }), "ops");
+        report(out, "store.load.lazy", size, measure(() -> {
+            TaskStore s = new TaskStore(data.getPath());
+            s.enableLazyLoad(LazyTaskFile.DEFAULT_CACHE_SIZE);
+            s.load();
+            blackhole += s.size();
+            return 1;
+        }), "ops");
+
+        Random rnd = new Random(SEED);
+        report(out, "store.findById", size, measure(() -> {
+            for (int i = 0; i < 1000; i++) {
+                Task t = store.findById(1 + rnd.nextInt(size));
+                if (t != null) blackhole += t.getId();
+            }
+            return 1000;
+        }), "ops");
+        // 同一 store 开启指标后再测一次，对比得到指标的开销
+        TaskStore measured = new TaskStore(data.getPath());
+        measured.enableMetrics();
+        measured.load();
+        report(out, "store.findById.metrics", size, measure(() -> {
+            for (int i = 0; i < 1000; i++) {
+                Task t = measured.findById(1 + rnd.nextInt(size));
+                if (t != null) blackhole += t.getId();
+            }
+            return 1000;
+        }), "ops");
+        report(out, "store.listByStatus.TODO", size, measure(() -> {
+            blackhole += store.listByStatus(Task.Status.TODO).size();
+            return 1;
+        }), "ops");
+
+        // 快照：第一次要按槽位数组建树（O(n) 次引用拷贝），之后 O(1)；
+        // 取快照后修改任务要先复制它，与不取快照时的修改对比
+        TaskStore[] snap = new TaskStore[1];
+        report(out, "store.snapshot.first", size, measureSingleShot(() -> {
+            snap[0] = new TaskStore(data.getPath());
+            snap[0].load();
+            return 0;
+        }, () -> {
+            blackhole += snap[0].snapshot().size();
+            return 1;
+        }), "ops");
+        report(out, "store.snapshot", size, measure(() -> {
+            blackhole += snap[0].snapshot().size();
+            return 1;
+        }), "ops");
+        for (boolean snapshotted : new boolean[] { false, true }) {
+            report(out, snapshotted ? "store.markStatus.snapshotted" : "store.markStatus", size, measure(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (snapshotted) snap[0].snapshot();
+                    int id = 1 + rnd.nextInt(size);
+                    snap[0].markStatus(id, snap[0].findById(id).getStatus() == Task.Status.DONE
+                            ? Task.Status.TODO : Task.Status.DONE);
+                }
+                return 1000;
+            }), "ops");
+        }
+        snap[0] = null;
+
+        // 删除会改变数据：每轮重新加载一份 store（不计时），只计时从该位置起删除一批连续 id
+        int batch = Math.max(1, Math.min(10_000, size / 10));
+        for (String position : new String[] { "head", "middle", "tail" }) {
+            int from = startFor(position, size, batch);
+            TaskStore[] fresh = new TaskStore[1];
+            report(out, "store.delete." + position, size, measureSingleShot(() -> {
+                fresh[0] = new TaskStore(data.getPath());
+                fresh[0].load();
+                return 0;
+            }, () -> {
+                for (int id = from; id < from + batch; id++) {
+                    if (fresh[0].delete(id)) blackhole++;
+                }
+                return batch;
+            }), "ops");
+        }
+    }
+
+    // 同一份数据分别装进 TaskStore 与 OffHeapTaskStore 后的堆占用（每个任务的字节数）
+    private static void runFootprint(PrintStream out, File dir, int size) {
+        String path = new File(dir, "footprint.txt").getPath();
+        long before = usedHeap();
+        TaskStore heap = new TaskStore(path);
+        populate(heap, size);
+        long heapBytes = usedHeap() - before;
+        blackhole += heap.size();
+        // 快照只多一棵存引用的树，不复制任务
+        before = usedHeap();
+        TaskSnapshot snapshot = heap.snapshot();
+        long snapshotBytes = usedHeap() - before;
+        blackhole += snapshot.size();
+        snapshot = null;
+        heap = null;
+
+        before = usedHeap();
+        OffHeapTaskStore offHeap = new OffHeapTaskStore(path);
+        Random rnd = new Random(SEED);
+        for (int i = 1; i <= size; i++) {
+            Task t = offHeap.add(description(rnd, i));
+            Task.Status st = status(rnd);
+            if (st != Task.Status.TODO) offHeap.markStatus(t.getId(), st);
+        }
+        long offHeapBytes = usedHeap() - before;
+        blackhole += offHeap.size();
+
+        out.println(String.format(Locale.ROOT, "footprint.heap.TaskStore\t%d\t%.1f\t0.0\tbytes/task",
+                size, heapBytes / (double) size));
+        out.println(String.format(Locale.ROOT, "footprint.heap.TaskSnapshot\t%d\t%.1f\t0.0\tbytes/task",
+                size, snapshotBytes / (double) size));
+        out.println(String.format(Locale.ROOT, "footprint.heap.OffHeapTaskStore\t%d\t%.1f\t0.0\tbytes/task",
+                size, offHeapBytes / (double) size));
+        out.println(String.format(Locale.ROOT, "footprint.direct.OffHeapTaskStore\t%d\t%.1f\t0.0\tbytes/task",
+                size, offHeap.offHeapBytes() / (double) size));
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static int startFor(String position, int size, int batch) {
+        switch (position) {
+            case "head": return 1;
+            case "middle": return Math.max(1, (size - batch) / 2);
+            default: return Math.max(1, size - batch + 1);
+        }
+    }
+
+    // ---------- 数据生成（固定种子，结果可复现） ----------
+
+    static List<String> generateLines(int n) {
+        Random rnd = new Random(SEED);
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            lines.add(new Task(i, description(rnd, i), status(rnd)).encode());
+        }
+        return lines;
+    }
+
+    static void populate(TaskStore store, int n) {
+        Random rnd = new Random(SEED);
+        for (int i = 1; i <= n; i++) {
+            Task t = store.add(description(rnd, i));
+            Task.Status st = status(rnd);
+            if (st != Task.Status.TODO) store.markStatus(t.getId(), st);
+        }
+    }
+
+    private static final String[] WORDS = { "整理", "文档", "会议", "review", "发布", "周报", "bug", "测试", "部署", "需求" };
+
+    private static String description(Random rnd, int i) {
+        StringBuilder sb = new StringBuilder();
+        int words = 2 + rnd.nextInt(5);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        return sb.append(" #").append(i).toString();
+    }
+
+    // DONE 约为 TODO 的 50 倍，与生产数据比例一致
+    private static Task.Status status(Random rnd) {
+        return rnd.nextInt(51) == 0 ? Task.Status.TODO : Task.Status.DONE;
+    }
+
+    // ---------- 编解码 ----------
+
+    private static int benchEncode(List<Task> tasks) {
+        TaskCodec codec = new TaskCodec();
+        for (Task t : tasks) codec.encode(t);
+        blackhole += codec.size();
+        return tasks.size();
+    }
+
+    // 每个线程标记状态后等待落盘：逐条 fsync 与组提交的持久化变更吞吐
+    private static void runGroupCommit(PrintStream out, File dir) throws IOException {
+        int threads = 8;
+        int perThread = 200;
+        for (boolean group : new boolean[] { false, true }) {
+            File data = new File(dir, "commit-" + group + ".txt");
+            TaskStore store = new TaskStore(data.getPath());
+            if (group) store.enableGroupCommit(256, 0, 0);
+            else store.enableJournal(1, 0);
+            store.load();
+            for (int i = 0; i < threads; i++) store.add("任务" + i);
+            report(out, group ? "journal.commit.group" : "journal.commit.each", threads, measure(() -> {
+                List<Thread> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int id = t + 1;
+                    Thread th = new Thread(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            store.markStatus(id, i % 2 == 0 ? Task.Status.DONE : Task.Status.TODO);
+                            store.commit().join();
+                        }
+                    });
+                    workers.add(th);
+                    th.start();
+                }
+                for (Thread th : workers) {
+                    try {
+                        th.join();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                return threads * perThread;
+            }), "ops");
+            store.close();
+            new File(data.getPath() + ".log").delete();
+        }
+    }
+
+    private static int benchDecode(List<String> lines) {
+        for (String line : lines) {
+            Task t = Task.decode(line);
+            if (t != null) blackhole += t.getId();
+        }
+        return lines.size();
+    }
+
+    // ---------- 测量 ----------
+
+    interface Op {
+        // 返回本次调用完成的操作数
+        int run() throws IOException;
+    }
+
+    // 返回 {平均 ops/s, 标准差}
+    private static double[] measure(Op op) {
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) iteration(op);
+            double[] samples = new double[MEASURE_ITERATIONS];
+            for (int i = 0; i < MEASURE_ITERATIONS; i++) samples[i] = iteration(op);
+            return stats(samples);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 每轮先执行一次 setup（不计时），再计时执行一次 op；适用于会破坏数据的操作
+    private static double[] measureSingleShot(Op setup, Op op) {
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                setup.run();
+                op.run();
+            }
+            double[] samples = new double[MEASURE_ITERATIONS];
+            for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+                setup.run();
+                long start = System.nanoTime();
+                int ops = op.run();
+                samples[i] = ops * 1e9 / (System.nanoTime() - start);
+            }
+            return stats(samples);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double[] stats(double[] samples) {
+        double mean = 0;
+        for (double s : samples) mean += s;
+        mean /= samples.length;
+        double var = 0;
+        for (double s : samples) var += (s - mean) * (s - mean);
+        return new double[] { mean, Math.sqrt(var / samples.length) };
+    }
+
+    private static double iteration(Op op) throws IOException {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            ops += op.run();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return ops * 1e9 / elapsed;
+    }
+
+    private static void report(PrintStream out, String name, int size, double[] r, String unit) {
+        out.println(String.format(Locale.ROOT, "%s\t%d\t%.1f\t%.1f\t%s/s", name, size, r[0], r[1], unit));
+    }
+
+    private static int[] parseSizes(String s) {
+        String[] parts = s.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) sizes[i] = Integer.parseInt(parts[i].trim());
+        return sizes;
+    }
+}
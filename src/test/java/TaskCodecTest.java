@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class TaskCodecTest {
+
+    private static final String[] LINES = {
+        "1|TODO|测试任务",
+        "2|DONE|完成的任务✓",
+        "3|TODO|任务|包含|分隔符",
+        "4|TODO|",
+        "  5  |  DONE  |  带空格的任务  ",
+        "\t6\t|\tTODO\t|制表符",
+        "+7|TODO|正号",
+        "-8|DONE|负数",
+        "0|TODO|零",
+        "2147483647|TODO|最大值",
+        "-2147483648|TODO|最小值",
+        "2147483648|TODO|溢出",
+        "99999999999999999999|TODO|严重溢出",
+        "1|TODO",
+        "1",
+        "",
+        "|",
+        "||",
+        "abc|TODO|任务",
+        "1|INVALID|任务",
+        "1|todo|小写",
+        "1|TOD|截断",
+        "-|TODO|只有符号",
+        "1 2|TODO|中间空格",
+        "1|DONE|emoji 😀 和 ascii",
+    };
+
+    // 旧实现，作为兼容性基准
+    private static Task reference(String line) {
+        try {
+            String[] parts = line.split("\\|", 3);
+            if (parts.length < 3) return null;
+            int id = Integer.parseInt(parts[0].trim());
+            Task.Status st = Task.Status.valueOf(parts[1].trim());
+            return new Task(id, parts[2], st);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void assertSameTask(Task expected, Task actual, String line) {
+        if (expected == null) {
+            assertNull(actual, line);
+            return;
+        }
+        assertNotNull(actual, line);
+        assertEquals(expected.getId(), actual.getId(), line);
+        assertEquals(expected.getStatus(), actual.getStatus(), line);
+        assertEquals(expected.getDescription(), actual.getDescription(), line);
+    }
+
+    @Test
+    @DisplayName("测试字符解码与旧实现一致，String 与其他 CharSequence 结果相同")
+    public void testDecodeCharsMatchesReference() {
+        TaskCodec codec = new TaskCodec();
+        for (String line : LINES) {
+            assertSameTask(reference(line), codec.decode(line, 0, line.length()), line);
+            StringBuilder sb = new StringBuilder("||").append(line).append("||");
+            assertSameTask(reference(line), codec.decode(sb, 2, 2 + line.length()), line);
+        }
+    }
+
+    @Test
+    @DisplayName("测试复用同一个 codec 解码时，上一行的时间戳不会带到没有时间戳的行")
+    public void testDecodeCharsReusesTimes() {
+        TaskCodec codec = new TaskCodec();
+        String withTimes = "1|DONE,100,200,300|任务一";
+        String withoutTimes = "2|TODO|任务二";
+        Task first = codec.decode(withTimes, 0, withTimes.length());
+        Task second = codec.decode(withoutTimes, 0, withoutTimes.length());
+        assertEquals(100, first.getCreatedAt());
+        assertEquals(300, first.getCompletedAt());
+        assertEquals(0, second.getCreatedAt());
+        assertEquals(0, second.getUpdatedAt());
+        assertEquals(0, second.getCompletedAt());
+    }
+
+    @Test
+    @DisplayName("测试字节解码与旧实现一致")
+    public void testDecodeBytesMatchesReference() {
+        TaskCodec codec = new TaskCodec();
+        for (String line : LINES) {
+            byte[] body = line.getBytes(StandardCharsets.UTF_8);
+            // 前后放上干扰字节，验证只解析给定区间
+            byte[] padded = new byte[body.length + 4];
+            Arrays.fill(padded, (byte) '|');
+            System.arraycopy(body, 0, padded, 2, body.length);
+            Task t = codec.decode(ByteBuffer.wrap(padded), 2, 2 + body.length);
+            assertSameTask(reference(line), t, line);
+        }
+    }
+
+    @Test
+    @DisplayName("测试字节编码与 Task.encode 逐字节一致")
+    public void testEncodeMatchesTaskEncode() {
+        Task[] tasks = {
+            new Task(1, "测试任务", Task.Status.TODO),
+            new Task(-2, "完成|的任务", Task.Status.DONE),
+            new Task(Integer.MIN_VALUE, "", Task.Status.TODO),
+            new Task(Integer.MAX_VALUE, null, Task.Status.DONE),
+            new Task(10, "emoji 😀 é ✓", Task.Status.TODO),
+            new Task(11, "孤立代理\uD800字符", Task.Status.TODO),
+        };
+        TaskCodec codec = new TaskCodec();
+        StringBuilder expected = new StringBuilder();
+        for (Task t : tasks) {
+            codec.encode(t);
+            expected.append(t.encode()).append('\n');
+        }
+        byte[] actual = Arrays.copyOf(codec.buffer(), codec.size());
+        assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), actual);
+    }
+
+    @Test
+    @DisplayName("测试编码缓冲可复用并按需扩容")
+    public void testBufferReuse() {
+        TaskCodec codec = new TaskCodec();
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 10000; i++) big.append('长');
+        codec.encode(new Task(1, big.toString(), Task.Status.TODO));
+        assertEquals(2 + 5 + 30000 + 1, codec.size());
+        codec.reset();
+        assertEquals(0, codec.size());
+        codec.encode(new Task(2, "x", Task.Status.DONE));
+        assertEquals("2|DONE|x\n", new String(codec.buffer(), 0, codec.size(), StandardCharsets.UTF_8));
+    }
+}
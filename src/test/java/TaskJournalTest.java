@@ -0,0 +1,184 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskJournalTest {
+
+    private File dataFile;
+    private File logFile;
+    private TaskStore store;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) throws IOException {
+        dataFile = tempDir.resolve("tasks.txt").toFile();
+        logFile = new File(dataFile.getPath() + ".log");
+        store = openStore();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.close();
+    }
+
+    private TaskStore openStore() throws IOException {
+        TaskStore s = new TaskStore(dataFile.getAbsolutePath());
+        s.enableJournal(1, 0);
+        s.load();
+        return s;
+    }
+
+    @Test
+    @DisplayName("测试未保存的变更可通过日志恢复")
+    public void testRecoverWithoutSave() throws IOException {
+        store.add("任务1");
+        store.add("任务2");
+        store.add("任务|3");
+        store.markStatus(2, Task.Status.DONE);
+        store.delete(1);
+        store.close(); // 模拟进程退出但没有调用 save()
+
+        assertFalse(dataFile.exists(), "没有 save 时不应写快照");
+        store = openStore();
+        List<Task> all = store.listAll();
+        assertEquals(2, all.size());
+        assertEquals(Task.Status.DONE, store.findById(2).getStatus());
+        assertEquals("任务|3", store.findById(3).getDescription());
+        assertNull(store.findById(1));
+        assertEquals(4, store.add("任务4").getId(), "回放后 nextId 应继续递增");
+    }
+
+    @Test
+    @DisplayName("测试 save 后日志被截断，快照 + 新日志仍能恢复")
+    public void testSaveTruncatesLog() throws IOException {
+        store.add("任务1");
+        store.add("任务2");
+        assertTrue(logFile.length() > 0);
+
+        store.save();
+        assertEquals(0, logFile.length(), "合并进快照后日志应为空");
+
+        store.markStatus(1, Task.Status.DONE);
+        store.close();
+
+        store = openStore();
+        assertEquals(2, store.size());
+        assertEquals(Task.Status.DONE, store.findById(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试回放幂等：快照已写但日志未截断")
+    public void testReplayIdempotent() throws IOException {
+        store.add("任务1");
+        store.markStatus(1, Task.Status.DONE);
+        store.close();
+        // 快照与日志内容重叠
+        Files.write(dataFile.toPath(), "1|DONE|任务1\n".getBytes(StandardCharsets.UTF_8));
+
+        store = openStore();
+        assertEquals(1, store.size());
+        assertEquals(Task.Status.DONE, store.findById(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试写了一半的尾行被跳过")
+    public void testTornTailIgnored() throws IOException {
+        store.add("任务1");
+        store.close();
+        Files.write(logFile.toPath(), "S|1|DO".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        store = openStore();
+        assertEquals(Task.Status.TODO, store.findById(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试日志每条记录只有几十字节")
+    public void testRecordIsSmall() {
+        for (int i = 0; i < 1000; i++) store.add("任务" + i);
+        long before = logFile.length();
+        store.markStatus(500, Task.Status.DONE);
+        assertTrue(logFile.length() - before < 32);
+    }
+
+    @Test
+    @DisplayName("测试只回放日志：回放遗留的日志、不再写日志，保存成功后删除日志")
+    public void testReplayOnly() throws IOException {
+        store.add("任务1");
+        store.add("任务2");
+        store.close(); // 模拟交互模式退出前未合并：快照为空，变更都在日志里
+        assertTrue(logFile.length() > 0);
+
+        store = new TaskStore(dataFile.getAbsolutePath());
+        store.enableJournalReplay();
+        assertThrows(IllegalStateException.class, () -> store.enableJournal(1, 0));
+        store.load();
+        assertEquals(2, store.listAll().size());
+        long before = logFile.length();
+        store.add("任务3");
+        store.delete(1);
+        assertEquals(before, logFile.length());
+
+        assertTrue(store.save());
+        assertFalse(logFile.exists());
+        store.close();
+        store = openStore();
+        assertNull(store.findById(1));
+        assertEquals("任务2", store.findById(2).getDescription());
+        assertEquals("任务3", store.findById(3).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试后台合并：日志超过阈值后写入快照")
+    public void testBackgroundCompaction() throws Exception {
+        store.close();
+        store = new TaskStore(dataFile.getAbsolutePath());
+        store.enableJournal(0, 1);
+        store.load();
+        store.add("任务1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (logFile.length() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(50);
+        assertEquals(0, logFile.length());
+        Task t = store.findById(1);
+        assertEquals("1|TODO," + t.getCreatedAt() + "," + t.getUpdatedAt() + ",0|任务1", Files.readAllLines(dataFile.toPath()).get(0));
+    }
+
+    @Test
+    @DisplayName("测试批量操作作为整体写入日志并可恢复")
+    public void testBatchRecovered() throws IOException {
+        store.addAll(Arrays.asList("任务1", "任务2", "任务3"));
+        store.markStatus(Arrays.asList(1, 2), Task.Status.DONE);
+        store.deleteAll(Arrays.asList(2));
+        store.close();
+
+        store = openStore();
+        assertEquals(2, store.size());
+        assertEquals(Task.Status.DONE, store.findById(1).getStatus());
+        assertNull(store.findById(2));
+    }
+
+    @Test
+    @DisplayName("测试写了一半的批次整体丢弃")
+    public void testTornBatchDiscarded() throws IOException {
+        store.add("任务1");
+        store.close();
+        Files.write(logFile.toPath(), "B|2\nA|2|TODO|任务2\nD|1\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        store = openStore();
+        assertEquals(1, store.size());
+        assertNotNull(store.findById(1), "未闭合批次中的删除不应生效");
+        assertNull(store.findById(2));
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TaskMetricsTest {
+
+    @Test
+    @DisplayName("测试各操作计数、读写字节数与跳过的坏行")
+    public void testStoreMetrics(@TempDir Path tempDir) throws IOException {
+        File data = tempDir.resolve("tasks.txt").toFile();
+        Files.write(data.toPath(), ("1|TODO|任务1\n坏行\n\n2|DONE|任务2\n3|???|坏状态\n")
+                .getBytes(StandardCharsets.UTF_8));
+        TaskStore store = new TaskStore(data.getAbsolutePath());
+        assertNull(store.metrics());
+        TaskMetrics m = store.enableMetrics();
+        assertSame(m, store.enableMetrics());
+        store.load();
+        assertEquals(2, m.getSkippedLines(), "空行不算坏行");
+        assertEquals(data.length(), m.getBytesRead());
+
+        store.add("任务3");
+        store.findById(1);
+        store.findById(99);
+        store.listByStatus(Task.Status.TODO);
+        store.markStatus(1, Task.Status.DONE);
+        store.delete(2);
+        store.delete(2);
+        store.search("任务");
+        store.save();
+
+        assertEquals(1, m.count("LOAD"));
+        assertEquals(1, m.count("ADD"));
+        assertEquals(2, m.count("FIND_BY_ID"));
+        assertEquals(1, m.count("LIST_BY_STATUS"));
+        assertEquals(1, m.count("MARK_STATUS"));
+        assertEquals(2, m.count("DELETE"), "找不到的 ID 也计入");
+        assertEquals(1, m.count("SEARCH"));
+        assertEquals(1, m.count("SAVE"));
+        assertEquals(data.length(), m.getBytesWritten());
+        assertTrue(m.percentileMicros("SAVE", 50) > 0);
+        assertTrue(m.dump().contains("FIND_BY_ID"));
+
+        m.reset();
+        assertEquals(0, m.count("LOAD"));
+        assertEquals(0, m.getBytesRead());
+    }
+
+    @Test
+    @DisplayName("测试日志回放中的坏行与未闭合批次计入跳过行数")
+    public void testJournalSkipped(@TempDir Path tempDir) throws IOException {
+        File data = tempDir.resolve("tasks.txt").toFile();
+        Files.write(new File(data.getPath() + ".log").toPath(),
+                ("A|1|TODO|任务1\nX|坏记录\nS|1|DONE\nB|2\nA|2|TODO|任务2\n").getBytes(StandardCharsets.UTF_8));
+        TaskStore store = new TaskStore(data.getAbsolutePath());
+        TaskMetrics m = store.enableMetrics();
+        store.enableJournal(0, 0);
+        store.load();
+        assertEquals(1, store.size());
+        assertEquals(2, m.getSkippedLines());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试 SLOTTED 格式增量保存只计实际写入的字节")
+    public void testSlottedBytesWritten(@TempDir Path tempDir) {
+        File data = tempDir.resolve("tasks.tds").toFile();
+        TaskStore store = new TaskStore(data.getAbsolutePath(), TaskStore.Format.SLOTTED);
+        TaskMetrics m = store.enableMetrics();
+        for (int i = 0; i < 100; i++) store.add("任务" + i);
+        store.save();
+        long full = m.getBytesWritten();
+        store.markStatus(5, Task.Status.DONE);
+        store.save();
+        assertEquals(full + 20, m.getBytesWritten(), "只改写状态和修改、完成时间");
+        store.close();
+    }
+
+    @Test
+    @DisplayName("测试注册 JMX MBean 并通过 MBeanServer 读取")
+    public void testMBean(@TempDir Path tempDir) throws Exception {
+        TaskStore store = new TaskStore(tempDir.resolve("tasks.txt").toString());
+        TaskMetrics m = store.enableMetrics();
+        ObjectName name = m.registerMBean("test-" + System.nanoTime());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            store.findById(1);
+            Object count = server.invoke(name, "count", new Object[] { "FIND_BY_ID" }, new String[] { String.class.getName() });
+            assertEquals(1L, count);
+            String[] summary = (String[]) server.getAttribute(name, "LatencySummary");
+            assertEquals(TaskMetrics.Op.values().length, summary.length);
+            assertEquals(0L, server.getAttribute(name, "SkippedLines"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
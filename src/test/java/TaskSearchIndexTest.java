@@ -0,0 +1,133 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskSearchIndexTest {
+
+    private TaskStore store;
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) {
+        this.tempDir = tempDir;
+        store = new TaskStore(tempDir.resolve("tasks.txt").toString());
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId());
+        return out;
+    }
+
+    @Test
+    @DisplayName("测试中文分词：单字与二字词")
+    public void testTokenizeCjk() {
+        List<String> tokens = TaskSearchIndex.tokenize("写周报 Review PR");
+        assertTrue(tokens.contains("写"));
+        assertTrue(tokens.contains("周报"));
+        assertTrue(tokens.contains("写周"));
+        assertTrue(tokens.contains("review"));
+        assertTrue(tokens.contains("pr"));
+        assertFalse(tokens.contains("写周报"));
+    }
+
+    @Test
+    @DisplayName("测试词查询：中文、英文、混合")
+    public void testTermSearch() {
+        store.add("写周报");
+        store.add("整理会议纪要");
+        store.add("Review 周报 draft");
+        store.add("发布新版本");
+
+        assertEquals(Arrays.asList(1, 3), ids(store.search("周报")));
+        assertEquals(Arrays.asList(2), ids(store.search("会议")));
+        assertEquals(Arrays.asList(3), ids(store.search("review 周报")));
+        assertEquals(Arrays.asList(3), ids(store.search("REVIEW")), "英文不区分大小写");
+        assertEquals(Arrays.asList(1, 3), ids(store.search("报")), "单字查询");
+        assertTrue(store.search("周会").isEmpty());
+        assertTrue(store.search("   ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试前缀查询")
+    public void testPrefixSearch() {
+        store.add("review code");
+        store.add("reviewer 分配");
+        store.add("release notes");
+
+        assertEquals(Arrays.asList(1, 2), ids(store.searchPrefix("rev")));
+        assertEquals(Arrays.asList(1, 2, 3), ids(store.searchPrefix("re")));
+        assertTrue(store.searchPrefix("x").isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试按状态过滤")
+    public void testStatusFilter() {
+        store.add("测试任务一");
+        store.add("测试任务二");
+        store.markStatus(2, Task.Status.DONE);
+
+        assertEquals(Arrays.asList(1), ids(store.search("测试", Task.Status.TODO)));
+        assertEquals(Arrays.asList(2), ids(store.search("测试", Task.Status.DONE)));
+    }
+
+    @Test
+    @DisplayName("测试索引随增删改增量更新")
+    public void testIncrementalUpdates() {
+        store.add("买牛奶");
+        assertEquals(1, store.search("牛奶").size()); // 首次搜索时建立索引
+
+        store.add("买面包");
+        assertEquals(Arrays.asList(2), ids(store.search("面包")));
+
+        assertTrue(store.updateDescription(1, "买咖啡"));
+        assertTrue(store.search("牛奶").isEmpty());
+        assertEquals(Arrays.asList(1), ids(store.search("咖啡")));
+
+        store.delete(2);
+        assertTrue(store.search("面包").isEmpty());
+        assertEquals(Arrays.asList(1), ids(store.search("买")));
+    }
+
+    @Test
+    @DisplayName("测试描述修改通过日志恢复")
+    public void testUpdateDescriptionJournaled() throws IOException {
+        String path = tempDir.resolve("journaled.txt").toString();
+        TaskStore s = new TaskStore(path);
+        s.enableJournal(1, 0);
+        s.load();
+        s.add("旧描述");
+        s.updateDescription(1, "新描述|含分隔符");
+        s.close();
+
+        TaskStore reloaded = new TaskStore(path);
+        reloaded.enableJournal(1, 0);
+        reloaded.load();
+        assertEquals("新描述|含分隔符", reloaded.findById(1).getDescription());
+        assertEquals(Arrays.asList(1), ids(reloaded.search("分隔符")));
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试大量任务下的查询")
+    public void testManyTasks() {
+        List<String> descs = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) descs.add((i % 100 == 0 ? "紧急 " : "普通 ") + "任务 " + i);
+        store.addAll(descs);
+        store.search("预热"); // 首次搜索建立索引，不计入查询耗时
+
+        long start = System.nanoTime();
+        List<Task> hits = store.search("紧急 任务");
+        long micros = (System.nanoTime() - start) / 1000;
+        assertEquals(1000, hits.size());
+        assertTrue(micros < 50_000, "查询耗时过长：" + micros + "us");
+    }
+}
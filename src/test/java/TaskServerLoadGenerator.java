@@ -0,0 +1,117 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// TaskServer 的压测工具：N 个并发客户端在固定时间内发送混合请求
+// （50% 按 id 查询、20% 列表、20% 添加、10% 标记状态），输出吞吐量与延迟分位数。
+// 不指定地址时在临时目录里启动一个进程内服务器。
+//
+//   java -cp target/classes:target/test-classes TaskServerLoadGenerator [并发数] [秒数] [地址]
+//   例如：java ... TaskServerLoadGenerator 1000 10 http://127.0.0.1:8080/tasks
+public class TaskServerLoadGenerator {
+    private static final int PRELOAD = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        TaskServer local = null;
+        File dir = null;
+        String base;
+        if (args.length > 2) {
+            base = args[2];
+        } else {
+            dir = Files.createTempDirectory("task-server-load").toFile();
+            ConcurrentTaskStore store = new ConcurrentTaskStore(new File(dir, "tasks.txt").getPath());
+            for (int i = 1; i <= PRELOAD; i++) store.add("预置任务 #" + i);
+            local = new TaskServer(store, 0);
+            local.start();
+            base = "http://127.0.0.1:" + local.port() + "/tasks";
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .executor(TaskServer.newRequestExecutor()).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long[][] latencies = new long[clients][];
+        int[] errors = new int[clients];
+        ExecutorService pool = TaskServer.newRequestExecutor();
+        for (int c = 0; c < clients; c++) {
+            int idx = c;
+            pool.execute(() -> latencies[idx] = runClient(client, base, deadline, errors, idx));
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        int total = 0;
+        for (long[] l : latencies) total += l == null ? 0 : l.length;
+        long[] all = new long[total];
+        int k = 0;
+        for (long[] l : latencies) {
+            if (l == null) continue;
+            System.arraycopy(l, 0, all, k, l.length);
+            k += l.length;
+        }
+        Arrays.sort(all);
+        int errorCount = 0;
+        for (int e : errors) errorCount += e;
+        System.out.println(String.format(Locale.ROOT,
+                "clients=%d requests=%d errors=%d throughput=%.1f req/s p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+                clients, total, errorCount, total / (double) seconds,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0)));
+
+        if (local != null) {
+            local.stop();
+            File[] files = dir.listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.delete();
+        }
+    }
+
+    private static long[] runClient(HttpClient client, String base, long deadline, int[] errors, int idx) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long[] lat = new long[1024];
+        int n = 0;
+        while (System.nanoTime() < deadline) {
+            int dice = rnd.nextInt(10);
+            int id = 1 + rnd.nextInt(PRELOAD);
+            HttpRequest req;
+            if (dice < 5) {
+                req = HttpRequest.newBuilder(URI.create(base + "/" + id)).GET().build();
+            } else if (dice < 7) {
+                req = HttpRequest.newBuilder(URI.create(base + "?after=" + id + "&limit=20")).GET().build();
+            } else if (dice < 9) {
+                req = HttpRequest.newBuilder(URI.create(base)).POST(HttpRequest.BodyPublishers.ofString("压测任务")).build();
+            } else {
+                req = HttpRequest.newBuilder(URI.create(base + "/" + id + "/status"))
+                        .PUT(HttpRequest.BodyPublishers.ofString("DONE")).build();
+            }
+            long start = System.nanoTime();
+            try {
+                int code = client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (code >= 500) errors[idx]++;
+            } catch (IOException e) {
+                errors[idx]++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+            lat[n++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(lat, n);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+}
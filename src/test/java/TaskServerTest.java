@@ -0,0 +1,170 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class TaskServerTest {
+
+    private File testFile;
+    private ConcurrentTaskStore store;
+    private TaskServer server;
+    private HttpClient client;
+    private String base;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) throws IOException {
+        testFile = tempDir.resolve("tasks.txt").toFile();
+        store = new ConcurrentTaskStore(testFile.getAbsolutePath());
+        server = new TaskServer(store, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+        base = "http://127.0.0.1:" + server.port() + "/tasks";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(base + path));
+        b.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("测试添加、查询、标记、删除的完整流程")
+    public void testCrud() throws Exception {
+        HttpResponse<String> r = send("POST", "", "{\"description\": \"写周报\"}");
+        assertEquals(201, r.statusCode());
+        Task created = store.findById(1);
+        assertEquals("{\"id\":1,\"status\":\"TODO\",\"createdAt\":" + created.getCreatedAt()
+                + ",\"updatedAt\":" + created.getUpdatedAt() + ",\"completedAt\":0,\"description\":\"写周报\"}", r.body());
+        assertTrue(created.getCreatedAt() > 0);
+        assertEquals("/tasks/1", r.headers().firstValue("Location").orElse(null));
+
+        assertEquals(201, send("POST", "", "纯文本描述").statusCode());
+        assertEquals("纯文本描述", store.findById(2).getDescription());
+
+        r = send("GET", "/1", null);
+        assertEquals(200, r.statusCode());
+        assertTrue(r.body().contains("\"写周报\""));
+
+        r = send("PUT", "/1/status", "DONE");
+        assertEquals(200, r.statusCode());
+        assertEquals(Task.Status.DONE, store.findById(1).getStatus());
+
+        assertEquals(204, send("DELETE", "/2", null).statusCode());
+        assertEquals(404, send("DELETE", "/2", null).statusCode());
+        assertEquals(404, send("GET", "/2", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("测试错误请求返回 4xx")
+    public void testBadRequests() throws Exception {
+        assertEquals(400, send("GET", "/abc", null).statusCode());
+        assertEquals(400, send("POST", "", "  ").statusCode());
+        assertEquals(400, send("POST", "", "{\"other\": \"x\"}").statusCode());
+        store.add("任务");
+        assertEquals(400, send("PUT", "/1/status", "MAYBE").statusCode());
+        assertEquals(404, send("PUT", "/9/status", "DONE").statusCode());
+        assertEquals(405, send("DELETE", "", null).statusCode());
+        assertEquals(400, send("GET", "?status=XX", null).statusCode());
+        assertEquals(400, send("GET", "?limit=abc", null).statusCode());
+        // 文本数据文件按行存储，描述不能含换行
+        assertEquals(400, send("POST", "", "{\"description\": \"line1\\nline2\"}").statusCode());
+        assertEquals(400, send("POST", "", "line1\rline2").statusCode());
+        assertEquals(413, send("POST", "", "x".repeat(65 << 10)).statusCode());
+        // 上下文按前缀匹配，其他路径不能当作 /tasks 处理
+        assertEquals(404, send("POST", "XYZ", "任务").statusCode());
+        assertEquals(404, send("GET", "XYZ/1", null).statusCode());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("测试列表按状态过滤和游标分页")
+    public void testListPaging() throws Exception {
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.markStatus(3, Task.Status.DONE);
+        store.markStatus(7, Task.Status.DONE);
+
+        assertEquals("[" + TaskServer.toJson(store.findById(3)) + "," + TaskServer.toJson(store.findById(7)) + "]",
+                send("GET", "?status=DONE", null).body());
+
+        String page = send("GET", "?after=4&limit=2", null).body();
+        assertEquals("[" + TaskServer.toJson(store.findById(5)) + "," + TaskServer.toJson(store.findById(6)) + "]", page);
+        assertEquals("[]", send("GET", "?after=10", null).body());
+    }
+
+    @Test
+    @DisplayName("测试 JSON 转义往返")
+    public void testJsonEscaping() throws Exception {
+        String desc = "引号\" 反斜杠\\ 制表\t";
+        HttpResponse<String> r = send("POST", "", "{\"description\": \"引号\\\" 反斜杠\\\\ 制表\\t\"}");
+        assertEquals(201, r.statusCode());
+        assertEquals(desc, store.findById(1).getDescription());
+        assertEquals(desc, TaskServer.jsonField(r.body(), "description"));
+        assertEquals("é", TaskServer.jsonField("{\"description\":\"\\u00e9\"}", "description"));
+        assertEquals("a\nb", TaskServer.jsonField("{\"description\":\"a\\nb\"}", "description"));
+    }
+
+    @Test
+    @DisplayName("测试并发请求：所有添加都成功且 ID 不重复")
+    public void testConcurrentAdds() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString("任务" + i)).build();
+            futures.add(client.sendAsync(req, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> f : futures) assertEquals(201, f.get().statusCode());
+        assertEquals(200, store.size());
+        assertEquals(200, store.listAfter(TaskStore.FROM_START, 1000).get(199).getId());
+    }
+
+    @Test
+    @DisplayName("测试停止服务时保存数据")
+    public void testStopSaves() throws Exception {
+        send("POST", "", "持久化");
+        server.stop();
+        ConcurrentTaskStore reloaded = new ConcurrentTaskStore(testFile.getAbsolutePath());
+        reloaded.load();
+        assertEquals("持久化", reloaded.findById(1).getDescription());
+        server = new TaskServer(store, 0); // 供 tearDown 再次停止
+    }
+
+    @Test
+    @DisplayName("测试开启后台保存后变更不必等到停止服务就写入文件")
+    public void testAsyncSave() throws Exception {
+        store.enableAsyncSave(10, 1);
+        assertEquals(201, send("POST", "", "定期保存").statusCode());
+        long deadline = System.currentTimeMillis() + 5000;
+        ConcurrentTaskStore reloaded;
+        do {
+            Thread.sleep(20);
+            reloaded = new ConcurrentTaskStore(testFile.getAbsolutePath());
+            reloaded.load();
+        } while (reloaded.size() == 0 && System.currentTimeMillis() < deadline);
+        assertEquals("定期保存", reloaded.findById(1).getDescription());
+
+        send("PUT", "/1/status", "DONE");
+        server.stop();
+        reloaded = new ConcurrentTaskStore(testFile.getAbsolutePath());
+        reloaded.load();
+        assertEquals(Task.Status.DONE, reloaded.findById(1).getStatus());
+        server = new TaskServer(store, 0);
+    }
+}
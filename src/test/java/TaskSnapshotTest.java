@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TaskSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TaskStore newStore() {
+        return new TaskStore(tempDir.resolve("tasks.txt").toString());
+    }
+
+    // 把任务列表转成 "id:status:description" 形式，便于比较内容
+    private static List<String> contents(Iterable<Task> tasks) {
+        List<String> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId() + ":" + t.getStatus() + ":" + t.getDescription());
+        return out;
+    }
+
+    @Test
+    @DisplayName("测试快照不受之后的增删改影响")
+    public void testPointInTime() {
+        TaskStore store = newStore();
+        for (int i = 1; i <= 5; i++) store.add("任务" + i);
+        TaskSnapshot before = store.snapshot();
+        List<String> expected = contents(store.listAll());
+
+        store.markStatus(1, Task.Status.DONE);
+        store.updateDescription(2, "改过的描述");
+        store.delete(3);
+        store.add("任务6");
+
+        assertEquals(expected, contents(before.listAll()));
+        assertEquals(expected, contents(before));
+        assertEquals(5, before.size());
+        assertEquals(0, before.countByStatus(Task.Status.DONE));
+        assertTrue(before.listByStatus(Task.Status.DONE).isEmpty());
+
+        TaskSnapshot after = store.snapshot();
+        assertEquals(contents(store.listAll()), contents(after.listAll()));
+        assertEquals(1, after.countByStatus(Task.Status.DONE));
+        assertEquals(1, after.listByStatus(Task.Status.DONE).get(0).getId());
+        assertTrue(after.version() > before.version());
+        assertEquals(after.version(), store.snapshot().version(), "没有变更时版本不变");
+    }
+
+    @Test
+    @DisplayName("测试快照与 store 共享任务对象，不复制；任务只读，快照之后的修改落在副本上")
+    public void testSharedTasks() {
+        TaskStore store = newStore();
+        Task live = store.add("任务1");
+        store.add("任务2");
+        assertThrows(UnsupportedOperationException.class, () -> live.setStatus(Task.Status.DONE), "store 中的任务只能经由 store 修改");
+        TaskSnapshot s = store.snapshot();
+        Task shared = s.listAll().get(0);
+        assertSame(live, shared, "取快照不复制任务");
+        assertThrows(UnsupportedOperationException.class, () -> shared.setDescription("x"));
+
+        store.markStatus(live.getId(), Task.Status.DONE);
+        Task copy = store.findById(live.getId());
+        assertNotSame(live, copy, "第一次修改时复制");
+        assertEquals(Task.Status.DONE, copy.getStatus());
+        assertEquals(Task.Status.TODO, shared.getStatus());
+        store.updateDescription(live.getId(), "改过的描述");
+        assertSame(copy, store.findById(live.getId()), "同一任务之后的修改原地进行");
+        assertSame(s.listAll().get(1), store.findById(2), "未修改的任务仍然共享");
+
+        Task mine = new Task(9, "自己的任务", Task.Status.TODO);
+        mine.setStatus(Task.Status.DONE); // 不属于 store 的任务照常可改
+        assertEquals(Task.Status.DONE, mine.getStatus());
+    }
+
+    @Test
+    @DisplayName("测试多层树与压缩：随机操作后每个快照都与当时的内容一致")
+    public void testRandomOperations() {
+        TaskStore store = newStore();
+        Random rnd = new Random(42);
+        List<TaskSnapshot> snapshots = new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 3000; i++) {
+                int op = rnd.nextInt(10);
+                int id = 1 + rnd.nextInt(store.nextId());
+                if (op < 5) store.add("任务" + rnd.nextInt(1000));
+                else if (op < 7) store.markStatus(id, rnd.nextBoolean() ? Task.Status.DONE : Task.Status.TODO);
+                else if (op < 8) store.updateDescription(id, "改" + rnd.nextInt(1000));
+                else store.delete(id);
+            }
+            snapshots.add(store.snapshot());
+            expected.add(contents(store.listAll()));
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(expected.get(i), contents(snapshots.get(i).listAll()));
+            assertEquals(expected.get(i), contents(snapshots.get(i)));
+            assertEquals(expected.get(i).size(), snapshots.get(i).size());
+        }
+    }
+
+    @Test
+    @DisplayName("测试写线程不停修改时，读线程看到的快照总是一致的")
+    public void testConsistentUnderConcurrentWrites() throws InterruptedException {
+        TaskStore store = newStore();
+        for (int i = 1; i <= 1000; i++) store.add("任务" + i);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            // 每次把一个任务移到 DONE，同时把另一个移回 TODO：任意时刻 DONE 的数量为 0 或 1
+            for (int i = 0; !stop.get(); i = (i + 1) % 1000) {
+                store.markStatus(i + 1, Task.Status.DONE);
+                store.markStatus(i + 1, Task.Status.TODO);
+            }
+        });
+        writer.start();
+        AtomicReference<String> failure = new AtomicReference<>();
+        try {
+            for (int i = 0; i < 2000 && failure.get() == null; i++) {
+                TaskSnapshot s = store.snapshot();
+                int done = s.listByStatus(Task.Status.DONE).size();
+                if (done > 1 || done != s.countByStatus(Task.Status.DONE) || s.listAll().size() != 1000) {
+                    failure.set("不一致的快照：DONE=" + done + "，计数=" + s.countByStatus(Task.Status.DONE));
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    @DisplayName("测试延迟加载的任务进入快照时不解码描述，保存结果一致")
+    public void testWithLazyLoad() throws IOException {
+        Path data = tempDir.resolve("tasks.txt");
+        Files.write(data, "1|TODO|任务一\n2|DONE|任务二\n".getBytes(StandardCharsets.UTF_8));
+        TaskStore store = newStore();
+        store.enableLazyLoad(4);
+        store.setClock(() -> 5L);
+        store.load();
+        TaskSnapshot s = store.snapshot();
+        assertTrue(s.listAll().get(0) instanceof LazyTaskFile.LazyTask);
+        store.updateDescription(1, "改过的描述");
+        assertEquals("任务一", s.listAll().get(0).getDescription());
+        assertThrows(UnsupportedOperationException.class, () -> s.listAll().get(1).setStatus(Task.Status.TODO));
+
+        store.enableAsyncSave(60_000, 1);
+        store.add("任务三");
+        store.flush();
+        store.close();
+        assertEquals("1|TODO,0,5,0|改过的描述\n2|DONE|任务二\n3|TODO,5,5,0|任务三\n",
+                new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+    }
+}
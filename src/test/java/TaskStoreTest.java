@@ -9,6 +9,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TaskStoreTest {
@@ -443,6 +445,208 @@ public class TaskStoreTest {
         assertNotSame(list1, list2);
     }
 
+    @Test
+    @DisplayName("测试大量删除后 listAll 仍保持插入顺序")
+    public void testDeleteManyKeepsOrder() {
+        for (int i = 1; i <= 1000; i++) store.add("任务" + i);
+        for (int i = 1; i <= 1000; i++) {
+            if (i % 3 != 0) assertTrue(store.delete(i));
+        }
+        List<Task> all = store.listAll();
+        assertEquals(333, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals((i + 1) * 3, all.get(i).getId());
+        }
+        assertNotNull(store.findById(999));
+        assertNull(store.findById(998));
+        assertTrue(store.markStatus(999, Task.Status.DONE));
+        assertEquals(Task.Status.DONE, store.findById(999).getStatus());
+    }
+
+    @Test
+    @DisplayName("测试 load - 重复 ID 只保留第一条")
+    public void testLoadDuplicateId() throws IOException {
+        Files.write(testFile.toPath(),
+            ("1|TODO|第一条\n" +
+             "1|DONE|重复\n").getBytes("UTF-8"));
+
+        store.load();
+        assertEquals(1, store.listAll().size());
+        assertEquals("第一条", store.findById(1).getDescription());
+    }
+
+    @Test
+    @DisplayName("测试 countByStatus - 随增删改同步更新")
+    public void testCountByStatus() {
+        store.add("任务1");
+        store.add("任务2");
+        store.add("任务3");
+        assertEquals(3, store.countByStatus(Task.Status.TODO));
+        assertEquals(0, store.countByStatus(Task.Status.DONE));
+
+        store.markStatus(2, Task.Status.DONE);
+        store.markStatus(2, Task.Status.DONE); // 重复标记不应重复计数
+        assertEquals(2, store.countByStatus(Task.Status.TODO));
+        assertEquals(1, store.countByStatus(Task.Status.DONE));
+
+        store.delete(2);
+        assertEquals(0, store.countByStatus(Task.Status.DONE));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("测试 listByStatus - 压缩后仍保持顺序与正确性")
+    public void testListByStatusAfterCompaction() {
+        for (int i = 1; i <= 200; i++) store.add("任务" + i);
+        for (int i = 1; i <= 200; i++) {
+            if (i % 10 == 0) store.markStatus(i, Task.Status.DONE);
+        }
+        for (int i = 1; i <= 150; i++) store.delete(i);
+
+        List<Task> dones = store.listByStatus(Task.Status.DONE);
+        assertEquals(5, dones.size());
+        assertEquals(160, dones.get(0).getId());
+        assertEquals(200, dones.get(4).getId());
+        assertEquals(45, store.listByStatus(Task.Status.TODO).size());
+    }
+
+    @Test
+    @DisplayName("测试批量 addAll / markStatus / deleteAll")
+    public void testBatchOperations() {
+        List<Task> added = store.addAll(Arrays.asList("任务1", "任务2", "任务3", "任务4", "任务5"));
+        assertEquals(5, added.size());
+        assertEquals(5, added.get(4).getId());
+
+        assertEquals(2, store.markStatus(Arrays.asList(2, 4, 99), Task.Status.DONE));
+        assertEquals(2, store.countByStatus(Task.Status.DONE));
+        assertEquals(3, store.markStatusRange(3, 10, Task.Status.DONE));
+        assertEquals(1, store.countByStatus(Task.Status.TODO));
+
+        assertEquals(3, store.deleteAll(Arrays.asList(1, 3, 5, 99)));
+        List<Task> all = store.listAll();
+        assertEquals(2, all.size());
+        assertEquals(2, all.get(0).getId());
+        assertEquals(4, all.get(1).getId());
+        assertEquals(6, store.add("任务6").getId());
+    }
+
+    @Test
+    @DisplayName("测试开放的 id 区间：按槽位扫描，不逐个 id 查找")
+    public void testMarkStatusRangeOpen() {
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        store.delete(5);
+        long start = System.nanoTime();
+        assertEquals(6, store.markStatusRange(4, Integer.MAX_VALUE, Task.Status.DONE));
+        assertEquals(3, store.markStatusRange(Integer.MIN_VALUE, 3, Task.Status.DONE));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "不应按区间长度逐个查找");
+        assertEquals(9, store.countByStatus(Task.Status.DONE));
+        assertEquals(0, store.markStatusRange(11, Integer.MAX_VALUE, Task.Status.TODO));
+    }
+
+    @Test
+    @DisplayName("测试批量删除大量任务后顺序与索引正确")
+    public void testDeleteAllLarge() {
+        List<String> descs = new ArrayList<>();
+        for (int i = 1; i <= 10000; i++) descs.add("任务" + i);
+        store.addAll(descs);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 10000; i++) if (i % 100 != 0) ids.add(i);
+
+        assertEquals(9900, store.deleteAll(ids));
+        List<Task> all = store.listAll();
+        assertEquals(100, all.size());
+        assertEquals(100, all.get(0).getId());
+        assertSame(all.get(99), store.findById(10000));
+    }
+
+    @Test
+    @DisplayName("测试 listRange - 偏移分页（含空槽）")
+    public void testListRange() {
+        for (int i = 1; i <= 10; i++) store.add("任务" + i);
+        List<Task> page = store.listRange(2, 3);
+        assertEquals(3, page.size());
+        assertEquals(3, page.get(0).getId());
+
+        store.delete(1);
+        store.delete(4);
+        page = store.listRange(2, 3);
+        assertEquals(5, page.get(0).getId());
+        assertEquals(7, page.get(2).getId());
+        assertTrue(store.listRange(100, 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试 listAfter - 游标分页遍历全部，游标任务被删除后仍可继续")
+    public void testListAfter() {
+        for (int i = 1; i <= 25; i++) store.add("任务" + i);
+        List<Task> first = store.listAfter(TaskStore.FROM_START, 10);
+        assertEquals(10, first.size());
+        int cursor = first.get(9).getId();
+        store.delete(cursor);
+
+        List<Task> second = store.listAfter(cursor, 10);
+        assertEquals(11, second.get(0).getId());
+        List<Task> third = store.listAfter(second.get(9).getId(), 10);
+        assertEquals(5, third.size());
+        assertEquals(25, third.get(4).getId());
+    }
+
+    @Test
+    @DisplayName("测试 listAfter - 游标任务已删除时二分定位，空槽和乱序的 id 也正确")
+    public void testListAfterDeletedCursor() {
+        for (int i = 1; i <= 100; i++) store.add("任务" + i);
+        for (int i = 20; i <= 45; i++) store.delete(i); // 连续的空槽，还不到压缩的阈值
+        for (int afterId = 0; afterId <= 101; afterId++) {
+            List<Task> page = store.listAfter(afterId, 1);
+            int expected = afterId < 19 ? afterId + 1 : afterId < 46 ? 46 : afterId + 1;
+            if (expected > 100) assertTrue(page.isEmpty());
+            else assertEquals(expected, page.get(0).getId(), "afterId=" + afterId);
+        }
+        assertEquals(Arrays.asList(46, 47), idsOf(store.listAfter(Task.Status.TODO, 30, 2)));
+
+        // 复用的 id 追加在末尾，槽位中的 id 不再递增，退回线性扫描
+        store.enableIdReuse();
+        assertEquals(20, store.add("复用").getId());
+        store.delete(50);
+        assertEquals(51, store.listAfter(50, 1).get(0).getId());
+    }
+
+    @Test
+    @DisplayName("测试 listAfter - 按状态分页")
+    public void testListAfterByStatus() {
+        for (int i = 1; i <= 30; i++) {
+            store.add("任务" + i);
+            if (i % 3 == 0) store.markStatus(i, Task.Status.DONE);
+        }
+        List<Task> page = store.listAfter(Task.Status.DONE, TaskStore.FROM_START, 4);
+        assertEquals(Arrays.asList(3, 6, 9, 12), idsOf(page));
+        page = store.listAfter(Task.Status.DONE, 12, 100);
+        assertEquals(6, page.size());
+        assertEquals(30, page.get(5).getId());
+    }
+
+    @Test
+    @DisplayName("测试迭代器与 stream 按插入顺序遍历且不复制")
+    public void testIteratorAndStream() {
+        for (int i = 1; i <= 5; i++) store.add("任务" + i);
+        store.delete(2);
+        List<Integer> ids = new ArrayList<>();
+        for (Task t : store) ids.add(t.getId());
+        assertEquals(Arrays.asList(1, 3, 4, 5), ids);
+        assertEquals(4, store.stream().count());
+        assertEquals(13, store.stream().mapToInt(Task::getId).sum());
+
+        assertThrows(java.util.ConcurrentModificationException.class, () -> {
+            for (Task t : store) store.add("遍历时添加");
+        });
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task t : tasks) ids.add(t.getId());
+        return ids;
+    }
+
     // 辅助方法：通过添加任务来推断 nextId
     private int getNextId(TaskStore store) {
         Task task = store.add("test");
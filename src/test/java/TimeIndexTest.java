@@ -0,0 +1,222 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TimeIndexTest {
+
+    private Path tempDir;
+    private final long[] now = { 1000 };
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    private TaskStore newStore(String name, TaskStore.Format format) {
+        TaskStore s = new TaskStore(tempDir.resolve(name).toString(), format);
+        s.setClock(() -> now[0]);
+        return s;
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getId());
+        return out;
+    }
+
+    private static void assertTimes(Task t, long created, long updated, long completed) {
+        assertEquals(created, t.getCreatedAt(), "createdAt");
+        assertEquals(updated, t.getUpdatedAt(), "updatedAt");
+        assertEquals(completed, t.getCompletedAt(), "completedAt");
+    }
+
+    @Test
+    @DisplayName("测试索引：区间按时间升序、同一时刻按 id 升序，时间为 0 的不入索引")
+    public void testRange() {
+        TimeIndex index = new TimeIndex();
+        index.add(30, 1);
+        index.add(10, 5);
+        index.add(10, 2);
+        index.add(20, 9);
+        index.add(0, 7);
+        assertEquals(4, index.size());
+        assertArrayEquals(new int[] { 2, 5, 9, 1 }, index.range(0, 100));
+        assertArrayEquals(new int[] { 2, 5, 9 }, index.range(10, 30), "右端不含");
+        assertArrayEquals(new int[0], index.range(30, 30));
+
+        index.remove(10, 5);
+        index.remove(10, 42);
+        index.remove(0, 7);
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[] { 2, 9, 1 }, index.range(0, 100));
+    }
+
+    @Test
+    @DisplayName("测试同一毫秒内大量任务：桶内按 id 有序，乱序增删、重复添加后仍正确")
+    public void testLargeBucket() {
+        TimeIndex index = new TimeIndex();
+        for (int id = 51; id <= 100; id++) index.add(5, id);
+        for (int id = 50; id >= 1; id--) index.add(5, id);
+        index.add(5, 42);
+        index.add(6, 200);
+        for (int id = 2; id <= 100; id += 2) index.remove(5, id);
+        int[] range = index.range(5, 6);
+        assertEquals(50, range.length);
+        for (int i = 0; i < range.length; i++) assertEquals(2 * i + 1, range[i]);
+        assertEquals(51, index.size());
+    }
+
+    @Test
+    @DisplayName("测试新增、完成、改回、修改描述时维护创建、修改、完成时间")
+    public void testTimestamps() {
+        TaskStore store = newStore("tasks.txt", TaskStore.Format.TEXT);
+        store.add("任务1");
+        now[0] = 2000;
+        store.addAll(Arrays.asList("任务2", "任务3"));
+        assertTimes(store.findById(1), 1000, 1000, 0);
+        assertTimes(store.findById(3), 2000, 2000, 0);
+
+        now[0] = 3000;
+        store.markStatus(1, Task.Status.DONE);
+        assertTimes(store.findById(1), 1000, 3000, 3000);
+        now[0] = 3500;
+        store.markStatus(1, Task.Status.DONE);
+        assertTimes(store.findById(1), 1000, 3000, 3000);
+
+        now[0] = 4000;
+        store.updateDescription(1, "改过的描述");
+        assertTimes(store.findById(1), 1000, 4000, 3000);
+        store.markStatus(1, Task.Status.TODO);
+        assertTimes(store.findById(1), 1000, 4000, 0);
+    }
+
+    @Test
+    @DisplayName("测试按时间区间查询，索引随变更和删除增量维护")
+    public void testListBetween() {
+        TaskStore store = newStore("tasks.txt", TaskStore.Format.TEXT);
+        for (int i = 1; i <= 5; i++) {
+            now[0] = 1000 * i;
+            store.add("任务" + i);
+        }
+        assertEquals(Arrays.asList(2, 3, 4), ids(store.listBetween(Task.Time.CREATED, 2000, 5000)));
+        assertTrue(store.listBetween(Task.Time.COMPLETED, 0, Long.MAX_VALUE).isEmpty(), "未完成的任务不计入");
+
+        now[0] = 9000;
+        store.markStatus(Arrays.asList(4, 2), Task.Status.DONE);
+        now[0] = 8000;
+        store.markStatus(5, Task.Status.DONE);
+        assertEquals(Arrays.asList(5, 2, 4), ids(store.listBetween(Task.Time.COMPLETED, 0, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(1, 3, 5, 2, 4), ids(store.listBetween(Task.Time.UPDATED, 0, Long.MAX_VALUE)));
+
+        store.delete(2);
+        store.markStatus(5, Task.Status.TODO);
+        assertEquals(Arrays.asList(4), ids(store.listBetween(Task.Time.COMPLETED, 0, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(1, 3, 4, 5), ids(store.listBetween(Task.Time.CREATED, 0, Long.MAX_VALUE)));
+    }
+
+    @Test
+    @DisplayName("测试各种格式保存、加载后时间戳不变，并可按时间查询")
+    public void testPersistRoundTrip() {
+        for (TaskStore.Format format : TaskStore.Format.values()) {
+            TaskStore store = newStore("tasks-" + format, format);
+            store.load();
+            store.add("任务1");
+            now[0] = 2000;
+            store.add("任务2");
+            now[0] = 3000;
+            store.markStatus(2, Task.Status.DONE);
+            store.save();
+            // 槽位格式再走一次增量写入
+            now[0] = 4000;
+            store.updateDescription(1, "改过的描述");
+            store.save();
+            store.close();
+
+            TaskStore reloaded = newStore("tasks-" + format, format);
+            reloaded.load();
+            assertTimes(reloaded.findById(1), 1000, 4000, 0);
+            assertTimes(reloaded.findById(2), 2000, 3000, 3000);
+            assertEquals(Arrays.asList(2), ids(reloaded.listBetween(Task.Time.COMPLETED, 3000, 3001)), format.toString());
+            reloaded.close();
+            now[0] = 1000;
+        }
+    }
+
+    @Test
+    @DisplayName("测试懒加载时时间戳从行头解析，不必读取描述")
+    public void testLazyLoad() throws IOException {
+        Path data = tempDir.resolve("tasks.txt");
+        Files.write(data, "1|DONE,100,300,300|任务一\n2|TODO|任务二\n".getBytes(StandardCharsets.UTF_8));
+        TaskStore store = newStore("tasks.txt", TaskStore.Format.TEXT);
+        store.enableLazyLoad(4);
+        store.load();
+        Task t = store.findById(1);
+        assertTrue(t instanceof LazyTaskFile.LazyTask);
+        assertTimes(t, 100, 300, 300);
+        assertTimes(store.findById(2), 0, 0, 0);
+        assertEquals(Arrays.asList(1), ids(store.listBetween(Task.Time.CREATED, 0, Long.MAX_VALUE)), "旧行没有时间戳，不参与查询");
+
+        store.markStatus(2, Task.Status.DONE);
+        store.save();
+        store.close();
+        assertEquals("1|DONE,100,300,300|任务一\n2|DONE,0,1000,1000|任务二\n",
+                new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("测试日志回放恢复时间戳，旧格式的日志记录仍可回放")
+    public void testJournalReplay() throws IOException {
+        TaskStore store = newStore("tasks.txt", TaskStore.Format.TEXT);
+        store.enableJournal(1, 0);
+        store.load();
+        store.add("任务1");
+        store.add("任务2");
+        now[0] = 2000;
+        store.markStatus(1, Task.Status.DONE);
+        now[0] = 3000;
+        store.updateDescription(2, "改过的描述");
+        store.close();
+
+        now[0] = 5000;
+        File log = tempDir.resolve("tasks.txt.log").toFile();
+        Files.write(log.toPath(), "S|2|DONE\nU|1|旧格式的修改\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        TaskStore reloaded = newStore("tasks.txt", TaskStore.Format.TEXT);
+        reloaded.enableJournal(1, 0);
+        reloaded.load();
+        assertTimes(reloaded.findById(1), 1000, 2000, 2000);
+        assertEquals("旧格式的修改", reloaded.findById(1).getDescription());
+        assertTimes(reloaded.findById(2), 1000, 3000, 0);
+        assertEquals(Task.Status.DONE, reloaded.findById(2).getStatus());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("测试重新编号后时间戳保留，索引按新 id 重建")
+    public void testRenumber() {
+        TaskStore store = newStore("tasks.txt", TaskStore.Format.TEXT);
+        for (int i = 1; i <= 4; i++) {
+            now[0] = 1000 * i;
+            store.add("任务" + i);
+        }
+        assertEquals(4, store.listBetween(Task.Time.CREATED, 0, Long.MAX_VALUE).size());
+        store.delete(1);
+        store.delete(3);
+        store.renumber();
+        assertTimes(store.findById(1), 2000, 2000, 0);
+        assertEquals(Arrays.asList(1, 2), ids(store.listBetween(Task.Time.CREATED, 0, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(2), ids(store.listBetween(Task.Time.CREATED, 4000, 4001)));
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class TodoBatchTest {
+
+    private TaskStore store;
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) {
+        this.tempDir = tempDir;
+        store = new TaskStore(tempDir.resolve("tasks.txt").toString());
+    }
+
+    private String run(String script, int expectedErrors) throws IOException {
+        StringWriter sw = new StringWriter();
+        int errors = new TodoBatch(store, new PrintWriter(sw)).run(new BufferedReader(new StringReader(script)));
+        assertEquals(expectedErrors, errors, sw.toString());
+        return sw.toString();
+    }
+
+    @Test
+    @DisplayName("测试批处理命令：add / done / todo / delete / list")
+    public void testCommands() throws IOException {
+        String out = run(
+            "# 注释行\n" +
+            "add 写周报\n" +
+            "add 发布 | 新版本\n" +
+            "\n" +
+            "add 整理文档\n" +
+            "done 2\n" +
+            "DONE 3\n" +
+            "todo 3\n" +
+            "delete 1\n" +
+            "list done\n", 0);
+
+        assertEquals(2, store.size());
+        assertEquals(Task.Status.DONE, store.findById(2).getStatus());
+        assertEquals(Task.Status.TODO, store.findById(3).getStatus());
+        assertEquals("发布 | 新版本", store.findById(2).getDescription());
+        assertTrue(out.contains(store.findById(2).toString()));
+    }
+
+    @Test
+    @DisplayName("测试批处理错误行：报告行号并继续执行")
+    public void testErrorsReported() throws IOException {
+        String out = run(
+            "add 任务1\n" +
+            "done abc\n" +
+            "done 99\n" +
+            "add\n" +
+            "list soon\n" +
+            "frobnicate\n" +
+            "done 1\n", 5);
+
+        assertTrue(out.contains("第 2 行"));
+        assertTrue(out.contains("第 6 行"));
+        assertEquals(Task.Status.DONE, store.findById(1).getStatus(), "出错后应继续执行后续命令");
+    }
+
+    @Test
+    @DisplayName("测试 renumber 命令：重新编号并写出映射文件")
+    public void testRenumber() throws IOException {
+        Path mapping = tempDir.resolve("ids.tsv");
+        run("add 任务1\n" +
+            "add 任务2\n" +
+            "add 任务3\n" +
+            "delete 1\n" +
+            "renumber " + mapping + "\n" +
+            "renumber\n", 1);
+
+        assertEquals("任务2", store.findById(1).getDescription());
+        assertEquals("任务3", store.findById(2).getDescription());
+        assertEquals(Arrays.asList("2\t1", "3\t2"), Files.readAllLines(mapping));
+    }
+
+    @Test
+    @DisplayName("测试 archive 命令：移出已完成的任务，未开启归档或参数错误时报错")
+    public void testArchive() throws IOException {
+        String out = run("add 任务1\n" +
+            "add 任务2\n" +
+            "done 1\n" +
+            "archive\n", 1);
+        assertTrue(out.contains("未开启归档"));
+
+        store.enableArchive();
+        run("archive x\n" +
+            "archive\n", 1);
+        assertEquals(1, store.size());
+        assertEquals(1, store.archivedCount());
+        assertEquals("任务1", store.findById(1).getDescription());
+
+        run("done 2\n" +
+            "archive 1d\n" +
+            "archive 1x\n", 1);
+        assertEquals(1, store.size(), "刚完成的任务不到 1 天，保留");
+        run("archive 0d\n", 0);
+        assertEquals(0, store.size());
+    }
+}